@@ -0,0 +1,104 @@
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hands lines to a background thread that writes them to another sink, so callers only pay for a
+// queue offer. When the queue is full, lines are dropped and counted rather than blocking the caller.
+public class AsyncOutputSink implements OutputSink, Closeable {
+    private static final int DEFAULT_CAPACITY = 16 * 1024;
+    private static final long POLL_MILLIS = 50;
+    
+    private final OutputSink target;
+    private final ArrayBlockingQueue<String> queue;
+    private final Thread writer;
+    private final AtomicLong queued;
+    private final AtomicLong dropped;
+    private final Object progress;
+    private long written;
+    private volatile boolean closed;
+    
+    public AsyncOutputSink(OutputSink target) {
+        this(target, DEFAULT_CAPACITY);
+    }
+    
+    public AsyncOutputSink(OutputSink target, int capacity) {
+        this.target = target;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.queued = new AtomicLong();
+        this.dropped = new AtomicLong();
+        this.progress = new Object();
+        this.writer = new Thread(this::drain, "task-output-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+    
+    @Override
+    public void println(String line) {
+        if (closed) {
+            return;
+        }
+        if (queue.offer(line)) {
+            queued.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+    
+    private void drain() {
+        ArrayList<String> batch = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                String first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch);
+            for (String line : batch) {
+                target.println(line);
+            }
+            target.flush();
+            synchronized (progress) {
+                written += batch.size();
+                progress.notifyAll();
+            }
+            batch.clear();
+        }
+    }
+    
+    // Waits until every line queued so far has reached the target.
+    @Override
+    public void flush() {
+        long goal = queued.get();
+        synchronized (progress) {
+            while (written < goal && writer.isAlive()) {
+                try {
+                    progress.wait(POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+    
+    public long getDroppedLines() {
+        return dropped.get();
+    }
+    
+    // Stops taking lines, writes out whatever is still queued and stops the writer thread.
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+// Collects lines in memory and hands them to the target writer in large chunks, when the buffer fills
+// or on flush, instead of one synchronized console write per line.
+public class BufferedOutputSink implements OutputSink {
+    private static final int DEFAULT_BUFFER_CHARS = 64 * 1024;
+    
+    private final Writer target;
+    private final int bufferChars;
+    private final StringBuilder buffer;
+    
+    public BufferedOutputSink(Writer target) {
+        this(target, DEFAULT_BUFFER_CHARS);
+    }
+    
+    public BufferedOutputSink(Writer target, int bufferChars) {
+        this.target = target;
+        this.bufferChars = bufferChars;
+        this.buffer = new StringBuilder(bufferChars);
+    }
+    
+    @Override
+    public synchronized void println(String line) {
+        buffer.append(line).append(System.lineSeparator());
+        if (buffer.length() >= bufferChars) {
+            writeBuffer();
+        }
+    }
+    
+    @Override
+    public synchronized void flush() {
+        writeBuffer();
+        try {
+            target.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not flush output", e);
+        }
+    }
+    
+    private void writeBuffer() {
+        try {
+            target.append(buffer);
+            buffer.setLength(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write output", e);
+        }
+    }
+}
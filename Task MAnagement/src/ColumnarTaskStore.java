@@ -0,0 +1,378 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Single-threaded struct-of-arrays store: every indexed field is copied into its own primitive
+// column, so filters, counts and statistics are plain loops over byte and long arrays. The task
+// column only keeps the objects that callers get back and mutate; scans never dereference it
+// except to return matches.
+public class ColumnarTaskStore implements TaskStore {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long MICROS_PER_HOUR = 3_600_000_000L;
+    private static final boolean[] COMPLETE_STATUS = completeStatuses();
+    private static final int MIN_PARALLEL_CHUNK = 16_384;
+    
+    private Task[] tasks;
+    private int[] ids;
+    private byte[] statuses;
+    private byte[] categories;
+    private byte[] priorities;
+    private long[] createdDates;
+    private long[] dueDates;
+    private long[] completedDates;
+    private TaskIdIndex slotsById;
+    private int size;
+    // Rows per ordinal, kept in step with the columns so counts never scan.
+    private final int[] statusCounts = new int[TaskStatus.values().length];
+    private final int[] categoryCounts = new int[TaskCategory.values().length];
+    private final int[] priorityCounts = new int[Priority.values().length];
+    
+    public ColumnarTaskStore() {
+        this(INITIAL_CAPACITY);
+    }
+    
+    public ColumnarTaskStore(int expectedSize) {
+        int capacity = Math.max(expectedSize, INITIAL_CAPACITY);
+        this.tasks = new Task[capacity];
+        this.ids = new int[capacity];
+        this.statuses = new byte[capacity];
+        this.categories = new byte[capacity];
+        this.priorities = new byte[capacity];
+        this.createdDates = new long[capacity];
+        this.dueDates = new long[capacity];
+        this.completedDates = new long[capacity];
+        this.slotsById = new TaskIdIndex(capacity);
+    }
+    
+    private static boolean[] completeStatuses() {
+        TaskStatus[] values = TaskStatus.values();
+        boolean[] complete = new boolean[values.length];
+        for (TaskStatus status : values) {
+            complete[status.ordinal()] = status.isComplete();
+        }
+        return complete;
+    }
+    
+    private void grow() {
+        grow(tasks.length * 2);
+    }
+    
+    private void grow(int capacity) {
+        tasks = Arrays.copyOf(tasks, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        createdDates = Arrays.copyOf(createdDates, capacity);
+        dueDates = Arrays.copyOf(dueDates, capacity);
+        completedDates = Arrays.copyOf(completedDates, capacity);
+    }
+    
+    @Override
+    public void add(Task task) {
+        if (size == tasks.length) {
+            grow();
+        }
+        int slot = size++;
+        slotsById.put(task.getId(), slot);
+        tasks[slot] = task;
+        ids[slot] = task.getId();
+        statuses[slot] = (byte) task.getStatus().ordinal();
+        categories[slot] = (byte) task.getCategory().ordinal();
+        priorities[slot] = (byte) task.getPriority().ordinal();
+        createdDates[slot] = task.getCreatedMicros();
+        dueDates[slot] = task.getDueMicros();
+        completedDates[slot] = task.getCompletedMicros();
+        statusCounts[statuses[slot]]++;
+        categoryCounts[categories[slot]]++;
+        priorityCounts[priorities[slot]]++;
+    }
+    
+    @Override
+    public void addAll(Collection<? extends Task> tasks) {
+        if (size + tasks.size() > this.tasks.length) {
+            grow(Math.max(size + tasks.size(), this.tasks.length * 2));
+        }
+        slotsById.ensureCapacity(size + tasks.size());
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+    
+    @Override
+    public boolean remove(Task task) {
+        int slot = slotsById.remove(task.getId());
+        if (slot < 0) {
+            return false;
+        }
+        statusCounts[statuses[slot]]--;
+        categoryCounts[categories[slot]]--;
+        priorityCounts[priorities[slot]]--;
+        
+        // Fill the hole with the last row instead of shifting everything after it.
+        int lastSlot = --size;
+        if (slot < lastSlot) {
+            tasks[slot] = tasks[lastSlot];
+            ids[slot] = ids[lastSlot];
+            statuses[slot] = statuses[lastSlot];
+            categories[slot] = categories[lastSlot];
+            priorities[slot] = priorities[lastSlot];
+            createdDates[slot] = createdDates[lastSlot];
+            dueDates[slot] = dueDates[lastSlot];
+            completedDates[slot] = completedDates[lastSlot];
+            slotsById.put(ids[slot], slot);
+        }
+        tasks[lastSlot] = null;
+        return true;
+    }
+    
+    @Override
+    public void onStatusChanged(Task task, TaskStatus oldStatus) {
+        int slot = slotsById.get(task.getId());
+        statusCounts[statuses[slot]]--;
+        statuses[slot] = (byte) task.getStatus().ordinal();
+        statusCounts[statuses[slot]]++;
+        completedDates[slot] = task.getCompletedMicros();
+    }
+    
+    @Override
+    public void onPriorityChanged(Task task, Priority oldPriority) {
+        int slot = slotsById.get(task.getId());
+        priorityCounts[priorities[slot]]--;
+        priorities[slot] = (byte) task.getPriority().ordinal();
+        priorityCounts[priorities[slot]]++;
+    }
+    
+    @Override
+    public void onDueDateChanged(Task task, LocalDateTime oldDueDate) {
+        dueDates[slotsById.get(task.getId())] = task.getDueMicros();
+    }
+    
+    @Override
+    public Task findById(int id) {
+        int slot = slotsById.get(id);
+        return slot < 0 ? null : tasks[slot];
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public int count(TaskStatus status) {
+        return statusCounts[status.ordinal()];
+    }
+    
+    @Override
+    public int count(TaskCategory category) {
+        return categoryCounts[category.ordinal()];
+    }
+    
+    @Override
+    public int count(Priority priority) {
+        return priorityCounts[priority.ordinal()];
+    }
+    
+    @Override
+    public ArrayList<Task> filter(TaskStatus status) {
+        return filter(statuses, (byte) status.ordinal());
+    }
+    
+    @Override
+    public ArrayList<Task> filter(TaskCategory category) {
+        return filter(categories, (byte) category.ordinal());
+    }
+    
+    @Override
+    public ArrayList<Task> filter(Priority priority) {
+        return filter(priorities, (byte) priority.ordinal());
+    }
+    
+    private ArrayList<Task> filter(byte[] column, byte value) {
+        ArrayList<Task> matches = new ArrayList<>();
+        for (int slot = 0; slot < size; slot++) {
+            if (column[slot] == value) {
+                matches.add(tasks[slot]);
+            }
+        }
+        return matches;
+    }
+    
+    // Checks all enum predicates per row against ordinal lookup tables, without touching the tasks.
+    @Override
+    public Stream<Task> candidates(TaskQuery query) {
+        boolean[] statusAllowed = allowed(query.getStatuses(), TaskStatus.values().length);
+        boolean[] categoryAllowed = allowed(query.getCategories(), TaskCategory.values().length);
+        boolean[] priorityAllowed = allowed(query.getPriorities(), Priority.values().length);
+        return IntStream.range(0, size)
+                        .filter(slot -> statusAllowed[statuses[slot]] && categoryAllowed[categories[slot]]
+                                && priorityAllowed[priorities[slot]])
+                        .mapToObj(slot -> tasks[slot]);
+    }
+    
+    private static <E extends Enum<E>> boolean[] allowed(EnumSet<E> values, int ordinals) {
+        boolean[] allowed = new boolean[ordinals];
+        if (values == null) {
+            Arrays.fill(allowed, true);
+        } else {
+            for (E value : values) {
+                allowed[value.ordinal()] = true;
+            }
+        }
+        return allowed;
+    }
+    
+    @Override
+    public Collection<Task> dueBefore(LocalDateTime time) {
+        return openTasksDueBetween(Long.MIN_VALUE, Task.toMicros(time));
+    }
+    
+    @Override
+    public Collection<Task> dueBetween(LocalDateTime after, LocalDateTime before) {
+        return openTasksDueBetween(Task.toMicros(after), Task.toMicros(before));
+    }
+    
+    // Open tasks due strictly between the bounds, ordered like the due-date index orders them.
+    private ArrayList<Task> openTasksDueBetween(long after, long before) {
+        int[] slots = new int[16];
+        long[] dues = new long[16];
+        int count = 0;
+        for (int slot = 0; slot < size; slot++) {
+            long due = dueDates[slot];
+            if (due > after && due < before && due != Task.NO_DATE && !COMPLETE_STATUS[statuses[slot]]) {
+                if (count == slots.length) {
+                    slots = Arrays.copyOf(slots, count * 2);
+                    dues = Arrays.copyOf(dues, count * 2);
+                }
+                slots[count] = slot;
+                dues[count++] = due;
+            }
+        }
+        sortByDueDate(dues, slots, 0, count);
+        
+        ArrayList<Task> tasksDue = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasksDue.add(tasks[slots[i]]);
+        }
+        return tasksDue;
+    }
+    
+    // Quicksort of the matches by (due date, id). The due dates are copied next to the slot numbers
+    // first so the sort works on two small dense arrays instead of jumping around the columns.
+    private void sortByDueDate(long[] dues, int[] slots, int from, int to) {
+        while (to - from > 16) {
+            int middle = (from + to) >>> 1;
+            long pivotDue = dues[middle];
+            int pivotSlot = slots[middle];
+            int left = from;
+            int right = to - 1;
+            while (left <= right) {
+                while (dueOrderBefore(dues[left], slots[left], pivotDue, pivotSlot)) {
+                    left++;
+                }
+                while (dueOrderBefore(pivotDue, pivotSlot, dues[right], slots[right])) {
+                    right--;
+                }
+                if (left <= right) {
+                    swap(dues, slots, left++, right--);
+                }
+            }
+            // Recurse into the smaller half and loop on the larger one to bound the stack depth.
+            if (right - from < to - left) {
+                sortByDueDate(dues, slots, from, right + 1);
+                from = left;
+            } else {
+                sortByDueDate(dues, slots, left, to);
+                to = right + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && dueOrderBefore(dues[j], slots[j], dues[j - 1], slots[j - 1]); j--) {
+                swap(dues, slots, j, j - 1);
+            }
+        }
+    }
+    
+    private static void swap(long[] dues, int[] slots, int i, int j) {
+        long due = dues[i];
+        dues[i] = dues[j];
+        dues[j] = due;
+        int slot = slots[i];
+        slots[i] = slots[j];
+        slots[j] = slot;
+    }
+    
+    private boolean dueOrderBefore(long due, int slot, long otherDue, int otherSlot) {
+        return due < otherDue || (due == otherDue && ids[slot] < ids[otherSlot]);
+    }
+    
+    @Override
+    public StatisticsSnapshot takeSnapshot(LocalDateTime now, boolean parallel) {
+        long nowMicros = Task.toMicros(now);
+        int rows = size;
+        if (!parallel) {
+            return accumulate(new StatisticsSnapshot.Builder(now), 0, rows, nowMicros).build();
+        }
+        
+        // Fixed row ranges, a few per worker so uneven scheduling still balances out.
+        int chunk = Math.max(MIN_PARALLEL_CHUNK, rows / (ForkJoinPool.getCommonPoolParallelism() * 4));
+        int chunks = (rows + chunk - 1) / chunk;
+        return IntStream.range(0, chunks).parallel()
+                        .mapToObj(i -> accumulate(new StatisticsSnapshot.Builder(now), i * chunk,
+                                                  Math.min(rows, (i + 1) * chunk), nowMicros))
+                        .reduce(StatisticsSnapshot.Builder::merge)
+                        .orElseGet(() -> new StatisticsSnapshot.Builder(now))
+                        .build();
+    }
+    
+    private StatisticsSnapshot.Builder accumulate(StatisticsSnapshot.Builder builder, int from, int to, long nowMicros) {
+        for (int slot = from; slot < to; slot++) {
+            int status = statuses[slot];
+            long due = dueDates[slot];
+            boolean overdue = due != Task.NO_DATE && nowMicros > due;
+            long completed = completedDates[slot];
+            double hours = completed == Task.NO_DATE ? -1 : (completed - createdDates[slot]) / MICROS_PER_HOUR;
+            builder.accept(status, categories[slot], priorities[slot], overdue, hours);
+        }
+        return builder;
+    }
+    
+    @Override
+    public Spliterator<Task> spliterator() {
+        return Arrays.spliterator(tasks, 0, size);
+    }
+    
+    @Override
+    public ArrayList<Task> asList() {
+        return new ArrayList<>(Arrays.asList(tasks).subList(0, size));
+    }
+    
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<Task>() {
+            private int slot;
+            
+            @Override
+            public boolean hasNext() {
+                return slot < size;
+            }
+            
+            @Override
+            public Task next() {
+                if (slot >= size) {
+                    throw new NoSuchElementException();
+                }
+                return tasks[slot++];
+            }
+        };
+    }
+}
@@ -0,0 +1,208 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+// Hammers a ConcurrentTaskStore from many threads at once, then checks that every index still agrees
+// with the tasks actually stored. Run with "java ConcurrentStoreStressCheck [threads] [tasksPerThread]";
+// it exits with status 1 on the first inconsistency.
+public class ConcurrentStoreStressCheck {
+    private static final int DEFAULT_THREADS = 32;
+    private static final int DEFAULT_TASKS_PER_THREAD = 2000;
+    
+    private final TaskManager taskManager;
+    private final List<Task> shared;
+    private final List<Task> survivors;
+    private final List<Task> removed;
+    
+    public ConcurrentStoreStressCheck() {
+        this.taskManager = new TaskManager(new ConcurrentTaskStore());
+        this.taskManager.setOutputSink(OutputSink.NONE);
+        this.shared = new CopyOnWriteArrayList<>();
+        this.survivors = Collections.synchronizedList(new ArrayList<>());
+        this.removed = Collections.synchronizedList(new ArrayList<>());
+    }
+    
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_THREADS;
+        int tasksPerThread = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_TASKS_PER_THREAD;
+        
+        ConcurrentStoreStressCheck check = new ConcurrentStoreStressCheck();
+        long start = System.nanoTime();
+        List<String> failures = check.run(threads, tasksPerThread);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        
+        if (failures.isEmpty()) {
+            System.out.println("✓ " + threads + " threads, " + check.survivors.size() + " tasks left, indexes consistent ("
+                               + millis + " ms)");
+        } else {
+            for (String failure : failures) {
+                System.out.println("✗ " + failure);
+            }
+            System.exit(1);
+        }
+    }
+    
+    // Every thread adds its own tasks and removes some of them, while changing the status, priority
+    // and due date of tasks added by any thread, and querying in between.
+    public List<String> run(int threads, int tasksPerThread) throws InterruptedException {
+        CountDownLatch go = new CountDownLatch(1);
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> workers = new ArrayList<>();
+        
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    go.await();
+                    work(new Random(seed), tasksPerThread);
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            }, "stress-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        go.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        
+        List<String> failures = new ArrayList<>();
+        for (Throwable error : errors) {
+            failures.add("worker failed: " + error);
+        }
+        verify(failures);
+        return failures;
+    }
+    
+    private void work(Random random, int tasksPerThread) throws TaskException {
+        List<Task> mine = new ArrayList<>();
+        for (int i = 0; i < tasksPerThread; i++) {
+            Task task = new WorkTask("Stress task " + i, "", randomPriority(random), randomDueDate(random),
+                                     "Stress", "Nobody", 1);
+            taskManager.addTask(task);
+            mine.add(task);
+            shared.add(task);
+            
+            Task other = shared.get(random.nextInt(shared.size()));
+            switch (random.nextInt(5)) {
+                case 0:
+                    other.updateStatus(TaskStatus.values()[random.nextInt(TaskStatus.values().length)]);
+                    break;
+                case 1:
+                    other.setPriority(randomPriority(random));
+                    break;
+                case 2:
+                    other.setDueDate(randomDueDate(random));
+                    break;
+                case 3:
+                    other.markComplete();
+                    break;
+                default:
+                    if (random.nextInt(4) == 0) {
+                        Task victim = mine.remove(random.nextInt(mine.size()));
+                        taskManager.removeTask(victim.getId());
+                        removed.add(victim);
+                    }
+            }
+            
+            if (i % 500 == 0) {
+                taskManager.getOverdueTasks();
+                taskManager.filterByStatus(TaskStatus.TODO);
+                taskManager.getTaskCount(Priority.HIGH);
+            }
+        }
+        survivors.addAll(mine);
+    }
+    
+    private void verify(List<String> failures) {
+        if (taskManager.getTotalTaskCount() != survivors.size()) {
+            failures.add("size " + taskManager.getTotalTaskCount() + ", expected " + survivors.size());
+        }
+        
+        // Every task added by any thread got its own ID, and the store holds each surviving one exactly once.
+        Set<Integer> ids = new HashSet<>();
+        for (Task task : shared) {
+            if (!ids.add(task.getId())) {
+                failures.add("ID " + task.getId() + " was given to more than one task");
+            }
+        }
+        Map<Integer, Integer> stored = new HashMap<>();
+        for (Task task : taskManager.getAllTasks()) {
+            stored.merge(task.getId(), 1, Integer::sum);
+        }
+        for (Task task : survivors) {
+            int copies = stored.getOrDefault(task.getId(), 0);
+            if (copies != 1) {
+                failures.add("task " + task.getId() + " is stored " + copies + " times");
+            }
+            if (taskManager.findTaskById(task.getId()) != task) {
+                failures.add("task " + task.getId() + " missing from the ID index");
+            }
+        }
+        for (Task task : removed) {
+            if (taskManager.findTaskById(task.getId()) != null) {
+                failures.add("removed task " + task.getId() + " still in the ID index");
+            }
+        }
+        
+        for (TaskStatus status : TaskStatus.values()) {
+            Set<Task> expected = new HashSet<>();
+            for (Task task : survivors) {
+                if (task.getStatus() == status) {
+                    expected.add(task);
+                }
+            }
+            compare("status " + status, expected, taskManager.filterByStatus(status),
+                    taskManager.getTaskCount(status), failures);
+        }
+        for (Priority priority : Priority.values()) {
+            Set<Task> expected = new HashSet<>();
+            for (Task task : survivors) {
+                if (task.getPriority() == priority) {
+                    expected.add(task);
+                }
+            }
+            compare("priority " + priority, expected, taskManager.filterByPriority(priority),
+                    taskManager.getTaskCount(priority), failures);
+        }
+        compare("category " + TaskCategory.WORK, new HashSet<>(survivors),
+                taskManager.filterByCategory(TaskCategory.WORK), taskManager.getTaskCount(TaskCategory.WORK), failures);
+        
+        Set<Task> overdue = new HashSet<>();
+        for (Task task : survivors) {
+            if (task.isOverdue()) {
+                overdue.add(task);
+            }
+        }
+        if (!overdue.equals(new HashSet<>(taskManager.getOverdueTasks()))) {
+            failures.add("due-date index disagrees with the overdue tasks");
+        }
+    }
+    
+    private static void compare(String index, Set<Task> expected, List<Task> found, int count, List<String> failures) {
+        if (!expected.equals(new HashSet<>(found)) || found.size() != expected.size()) {
+            failures.add(index + " index holds " + found.size() + " tasks, expected " + expected.size());
+        }
+        if (count != expected.size()) {
+            failures.add(index + " count is " + count + ", expected " + expected.size());
+        }
+    }
+    
+    private static Priority randomPriority(Random random) {
+        return Priority.values()[random.nextInt(Priority.values().length)];
+    }
+    
+    // Half the tasks are due in the past, so the overdue index sees traffic too.
+    private static LocalDateTime randomDueDate(Random random) {
+        return LocalDateTime.now().plusHours(random.nextInt(100) - 50);
+    }
+}
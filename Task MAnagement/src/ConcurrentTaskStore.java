@@ -0,0 +1,154 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Thread-safe store for multi-threaded ingestion and querying. Reads never take a lock; writers
+// only contend on the hash bins and skip-list nodes they actually touch.
+public class ConcurrentTaskStore implements TaskStore {
+    private final ConcurrentHashMap<Integer, Task> tasksById;
+    private final Set<Task>[] tasksByStatus;
+    private final Set<Task>[] tasksByCategory;
+    private final Set<Task>[] tasksByPriority;
+    private final DueDateIndex dueDateIndex;
+    
+    public ConcurrentTaskStore() {
+        this.tasksById = new ConcurrentHashMap<>();
+        this.tasksByStatus = newIndex(TaskStatus.values().length);
+        this.tasksByCategory = newIndex(TaskCategory.values().length);
+        this.tasksByPriority = newIndex(Priority.values().length);
+        this.dueDateIndex = new DueDateIndex(new ConcurrentSkipListMap<>());
+    }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Set<Task>[] newIndex(int size) {
+        Set<Task>[] index = new Set[size];
+        for (int i = 0; i < size; i++) {
+            index[i] = ConcurrentHashMap.newKeySet();
+        }
+        return index;
+    }
+    
+    @Override
+    public void add(Task task) {
+        tasksById.put(task.getId(), task);
+        tasksByStatus[task.getStatus().ordinal()].add(task);
+        tasksByCategory[task.getCategory().ordinal()].add(task);
+        tasksByPriority[task.getPriority().ordinal()].add(task);
+        dueDateIndex.add(task);
+    }
+    
+    @Override
+    public boolean remove(Task task) {
+        if (!tasksById.remove(task.getId(), task)) {
+            return false;
+        }
+        tasksByStatus[task.getStatus().ordinal()].remove(task);
+        tasksByCategory[task.getCategory().ordinal()].remove(task);
+        tasksByPriority[task.getPriority().ordinal()].remove(task);
+        dueDateIndex.remove(task);
+        return true;
+    }
+    
+    private boolean isStored(Task task) {
+        return tasksById.get(task.getId()) == task;
+    }
+    
+    @Override
+    public void onStatusChanged(Task task, TaskStatus oldStatus) {
+        if (isStored(task)) {
+            tasksByStatus[oldStatus.ordinal()].remove(task);
+            tasksByStatus[task.getStatus().ordinal()].add(task);
+            dueDateIndex.onStatusChanged(task, oldStatus);
+        }
+    }
+    
+    @Override
+    public void onPriorityChanged(Task task, Priority oldPriority) {
+        if (isStored(task)) {
+            tasksByPriority[oldPriority.ordinal()].remove(task);
+            tasksByPriority[task.getPriority().ordinal()].add(task);
+        }
+    }
+    
+    @Override
+    public void onDueDateChanged(Task task, LocalDateTime oldDueDate) {
+        if (isStored(task)) {
+            dueDateIndex.onDueDateChanged(task, oldDueDate);
+        }
+    }
+    
+    @Override
+    public Task findById(int id) {
+        return tasksById.get(id);
+    }
+    
+    @Override
+    public int size() {
+        return tasksById.size();
+    }
+    
+    @Override
+    public int count(TaskStatus status) {
+        return tasksByStatus[status.ordinal()].size();
+    }
+    
+    @Override
+    public int count(TaskCategory category) {
+        return tasksByCategory[category.ordinal()].size();
+    }
+    
+    @Override
+    public int count(Priority priority) {
+        return tasksByPriority[priority.ordinal()].size();
+    }
+    
+    @Override
+    public ArrayList<Task> filter(TaskStatus status) {
+        return new ArrayList<>(tasksByStatus[status.ordinal()]);
+    }
+    
+    @Override
+    public ArrayList<Task> filter(TaskCategory category) {
+        return new ArrayList<>(tasksByCategory[category.ordinal()]);
+    }
+    
+    @Override
+    public ArrayList<Task> filter(Priority priority) {
+        return new ArrayList<>(tasksByPriority[priority.ordinal()]);
+    }
+    
+    @Override
+    public Collection<Task> dueBefore(LocalDateTime time) {
+        return dueDateIndex.dueBefore(time);
+    }
+    
+    @Override
+    public Collection<Task> dueBetween(LocalDateTime after, LocalDateTime before) {
+        return dueDateIndex.dueBetween(after, before);
+    }
+    
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+    
+    @Override
+    public ArrayList<Task> asList() {
+        return new ArrayList<>(tasksById.values());
+    }
+    
+    @Override
+    public Iterator<Task> iterator() {
+        return tasksById.values().iterator();
+    }
+    
+    @Override
+    public Spliterator<Task> spliterator() {
+        return tasksById.values().spliterator();
+    }
+}
@@ -0,0 +1,7 @@
+public interface DeadlineListener {
+    default void onDueSoon(Task task) {
+    }
+    
+    default void onOverdue(Task task) {
+    }
+}
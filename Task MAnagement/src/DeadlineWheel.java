@@ -0,0 +1,264 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Hierarchical timing wheel over open tasks' due dates. Level 0 has one slot per tick and each
+// higher level covers 64 times the span of the one below; when a level wraps, the next slot of the
+// level above is cascaded down. Scheduling and cancelling are O(1) list splices, and a tick only
+// touches the slot that is expiring. Every task gets one "due soon" and one "overdue" event per due
+// date; changing the due date re-arms both, completing or removing the task cancels them.
+public class DeadlineWheel implements TaskChangeListener {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 6;
+    private static final long MAX_SPAN = 1L << (SLOT_BITS * LEVELS);
+    private static final int NONE = -1;
+    
+    private static final byte DUE_SOON = 0;
+    private static final byte OVERDUE = 1;
+    
+    private final long tickMicros;
+    private final long dueSoonMicros;
+    private final CopyOnWriteArrayList<DeadlineListener> listeners;
+    private final int[] slotHeads;
+    private final TaskIdIndex nodesById;
+    private long currentTick;
+    
+    // Timer nodes live in parallel arrays; unused nodes are chained through next.
+    private Task[] tasks;
+    private long[] deadlines;
+    private byte[] phases;
+    private int[] slots;
+    private int[] next;
+    private int[] previous;
+    private int freeNode;
+    private int nodeCount;
+    
+    public DeadlineWheel() {
+        this(Duration.ofSeconds(1), Duration.ofHours(24), LocalDateTime.now());
+    }
+    
+    public DeadlineWheel(Duration tick, Duration dueSoonWindow, LocalDateTime start) {
+        if (tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("Tick must be positive: " + tick);
+        }
+        this.tickMicros = tick.toNanos() / 1000;
+        this.dueSoonMicros = dueSoonWindow.toNanos() / 1000;
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.slotHeads = new int[LEVELS * SLOTS];
+        Arrays.fill(slotHeads, NONE);
+        this.nodesById = new TaskIdIndex();
+        this.currentTick = Math.floorDiv(Task.toMicros(start), tickMicros);
+        this.tasks = new Task[16];
+        this.deadlines = new long[16];
+        this.phases = new byte[16];
+        this.slots = new int[16];
+        this.next = new int[16];
+        this.previous = new int[16];
+        this.freeNode = NONE;
+    }
+    
+    public void addListener(DeadlineListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(DeadlineListener listener) {
+        listeners.remove(listener);
+    }
+    
+    // First tick at or after the given instant, so a deadline never fires early.
+    private long tickAtOrAfter(long micros) {
+        return Math.floorDiv(micros, tickMicros) + (Math.floorMod(micros, tickMicros) == 0 ? 0 : 1);
+    }
+    
+    public synchronized void schedule(Task task) {
+        cancel(task);
+        long due = task.getDueMicros();
+        if (due == Task.NO_DATE || task.getStatus().isComplete()) {
+            return;
+        }
+        long dueTick = tickAtOrAfter(due);
+        int node = allocate(task);
+        if (dueTick <= currentTick) {
+            phases[node] = OVERDUE;
+            deadlines[node] = dueTick;
+        } else {
+            phases[node] = DUE_SOON;
+            deadlines[node] = due - dueSoonMicros < due ? tickAtOrAfter(due - dueSoonMicros) : dueTick;
+        }
+        nodesById.put(task.getId(), node);
+        insert(node);
+    }
+    
+    public synchronized void cancel(Task task) {
+        int node = nodesById.remove(task.getId());
+        if (node != NONE) {
+            unlink(node);
+            release(node);
+        }
+    }
+    
+    public synchronized int size() {
+        return nodesById.size();
+    }
+    
+    public void advance() {
+        advance(LocalDateTime.now());
+    }
+    
+    // Runs every tick up to now, then notifies listeners outside the wheel's lock.
+    public void advance(LocalDateTime now) {
+        ArrayList<Task> dueSoon = new ArrayList<>();
+        ArrayList<Task> overdue = new ArrayList<>();
+        synchronized (this) {
+            long target = Math.floorDiv(Task.toMicros(now), tickMicros);
+            while (currentTick <= target) {
+                if (nodesById.isEmpty()) {
+                    currentTick = target + 1;
+                    break;
+                }
+                runTick(dueSoon, overdue);
+                currentTick++;
+            }
+        }
+        for (Task task : dueSoon) {
+            for (DeadlineListener listener : listeners) {
+                listener.onDueSoon(task);
+            }
+        }
+        for (Task task : overdue) {
+            for (DeadlineListener listener : listeners) {
+                listener.onOverdue(task);
+            }
+        }
+    }
+    
+    private void runTick(ArrayList<Task> dueSoon, ArrayList<Task> overdue) {
+        for (int level = 1; level < LEVELS; level++) {
+            if (((currentTick >> (SLOT_BITS * (level - 1))) & SLOT_MASK) != 0) {
+                break;
+            }
+            cascade(level, (int) ((currentTick >> (SLOT_BITS * level)) & SLOT_MASK));
+        }
+        int slot = (int) (currentTick & SLOT_MASK);
+        int node = slotHeads[slot];
+        slotHeads[slot] = NONE;
+        while (node != NONE) {
+            int following = next[node];
+            Task task = tasks[node];
+            if (phases[node] == DUE_SOON) {
+                dueSoon.add(task);
+                phases[node] = OVERDUE;
+                deadlines[node] = tickAtOrAfter(task.getDueMicros());
+                if (deadlines[node] > currentTick) {
+                    insert(node);
+                    node = following;
+                    continue;
+                }
+            }
+            overdue.add(task);
+            nodesById.remove(task.getId());
+            release(node);
+            node = following;
+        }
+    }
+    
+    private void cascade(int level, int slot) {
+        int index = level * SLOTS + slot;
+        int node = slotHeads[index];
+        slotHeads[index] = NONE;
+        while (node != NONE) {
+            int following = next[node];
+            insert(node);
+            node = following;
+        }
+    }
+    
+    // Picks the lowest level whose span covers the deadline; deadlines beyond the top level's span
+    // park in its furthest slot and are re-placed when that slot cascades.
+    private void insert(int node) {
+        long deadline = Math.max(deadlines[node], currentTick);
+        long delta = deadline - currentTick;
+        if (delta >= MAX_SPAN) {
+            deadline = currentTick + MAX_SPAN - 1;
+            delta = MAX_SPAN - 1;
+        }
+        int level = 0;
+        while (delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int index = level * SLOTS + (int) ((deadline >> (SLOT_BITS * level)) & SLOT_MASK);
+        slots[node] = index;
+        previous[node] = NONE;
+        next[node] = slotHeads[index];
+        if (slotHeads[index] != NONE) {
+            previous[slotHeads[index]] = node;
+        }
+        slotHeads[index] = node;
+    }
+    
+    private void unlink(int node) {
+        if (previous[node] != NONE) {
+            next[previous[node]] = next[node];
+        } else {
+            slotHeads[slots[node]] = next[node];
+        }
+        if (next[node] != NONE) {
+            previous[next[node]] = previous[node];
+        }
+    }
+    
+    private int allocate(Task task) {
+        int node;
+        if (freeNode != NONE) {
+            node = freeNode;
+            freeNode = next[node];
+        } else {
+            if (nodeCount == tasks.length) {
+                int capacity = nodeCount * 2;
+                tasks = Arrays.copyOf(tasks, capacity);
+                deadlines = Arrays.copyOf(deadlines, capacity);
+                phases = Arrays.copyOf(phases, capacity);
+                slots = Arrays.copyOf(slots, capacity);
+                next = Arrays.copyOf(next, capacity);
+                previous = Arrays.copyOf(previous, capacity);
+            }
+            node = nodeCount++;
+        }
+        tasks[node] = task;
+        return node;
+    }
+    
+    private void release(int node) {
+        tasks[node] = null;
+        next[node] = freeNode;
+        freeNode = node;
+    }
+    
+    @Override
+    public void onTaskAdded(Task task) {
+        schedule(task);
+    }
+    
+    @Override
+    public void onTaskRemoved(Task task) {
+        cancel(task);
+    }
+    
+    @Override
+    public void onStatusChanged(Task task, TaskStatus oldStatus) {
+        if (task.getStatus().isComplete()) {
+            cancel(task);
+        } else if (oldStatus.isComplete()) {
+            schedule(task);
+        }
+    }
+    
+    @Override
+    public void onDueDateChanged(Task task, LocalDateTime oldDueDate) {
+        schedule(task);
+    }
+}
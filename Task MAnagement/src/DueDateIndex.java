@@ -0,0 +1,94 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Open tasks with a due date, ordered by due date so overdue/upcoming lookups are range queries.
+public class DueDateIndex implements TaskChangeListener {
+    private NavigableMap<DueKey, Task> tasksByDueDate;
+    
+    public DueDateIndex() {
+        this(new TreeMap<>());
+    }
+    
+    public DueDateIndex(NavigableMap<DueKey, Task> backingMap) {
+        this.tasksByDueDate = backingMap;
+    }
+    
+    public void add(Task task) {
+        if (isIndexed(task.getStatus(), task.getDueDate())) {
+            tasksByDueDate.put(new DueKey(task.getDueDate(), task.getId()), task);
+        }
+    }
+    
+    public void remove(Task task) {
+        remove(task, task.getStatus(), task.getDueDate());
+    }
+    
+    private void remove(Task task, TaskStatus status, LocalDateTime dueDate) {
+        if (isIndexed(status, dueDate)) {
+            tasksByDueDate.remove(new DueKey(dueDate, task.getId()));
+        }
+    }
+    
+    private static boolean isIndexed(TaskStatus status, LocalDateTime dueDate) {
+        return dueDate != null && !status.isComplete();
+    }
+    
+    @Override
+    public void onStatusChanged(Task task, TaskStatus oldStatus) {
+        if (oldStatus.isComplete() != task.getStatus().isComplete()) {
+            remove(task, oldStatus, task.getDueDate());
+            add(task);
+        }
+    }
+    
+    @Override
+    public void onDueDateChanged(Task task, LocalDateTime oldDueDate) {
+        remove(task, task.getStatus(), oldDueDate);
+        add(task);
+    }
+    
+    public Collection<Task> dueBefore(LocalDateTime time) {
+        return tasksByDueDate.headMap(new DueKey(time, Integer.MIN_VALUE), false).values();
+    }
+    
+    public Collection<Task> dueBetween(LocalDateTime after, LocalDateTime before) {
+        if (!after.isBefore(before)) {
+            return new ArrayList<>();
+        }
+        return tasksByDueDate.subMap(new DueKey(after, Integer.MAX_VALUE), false,
+                                     new DueKey(before, Integer.MIN_VALUE), false).values();
+    }
+    
+    public int size() {
+        return tasksByDueDate.size();
+    }
+    
+    public static final class DueKey implements Comparable<DueKey> {
+        private final LocalDateTime dueDate;
+        private final int taskId;
+        
+        DueKey(LocalDateTime dueDate, int taskId) {
+            this.dueDate = dueDate;
+            this.taskId = taskId;
+        }
+        
+        @Override
+        public int compareTo(DueKey other) {
+            int byDate = dueDate.compareTo(other.dueDate);
+            return byDate != 0 ? byDate : Integer.compare(taskId, other.taskId);
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof DueKey && compareTo((DueKey) other) == 0;
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * dueDate.hashCode() + taskId;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+import java.util.BitSet;
+
+// Secondary index: one bitset of allTasks slots per enum constant, plus a running count.
+public class EnumSlotIndex<E extends Enum<E>> {
+    private BitSet[] slots;
+    private int[] counts;
+    
+    public EnumSlotIndex(Class<E> type) {
+        int size = type.getEnumConstants().length;
+        this.slots = new BitSet[size];
+        this.counts = new int[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new BitSet();
+        }
+    }
+    
+    public void add(int slot, E value) {
+        slots[value.ordinal()].set(slot);
+        counts[value.ordinal()]++;
+    }
+    
+    public void remove(int slot, E value) {
+        slots[value.ordinal()].clear(slot);
+        counts[value.ordinal()]--;
+    }
+    
+    public void move(int fromSlot, int toSlot, E value) {
+        BitSet bits = slots[value.ordinal()];
+        bits.clear(fromSlot);
+        bits.set(toSlot);
+    }
+    
+    public void change(int slot, E oldValue, E newValue) {
+        if (oldValue == newValue) {
+            return;
+        }
+        remove(slot, oldValue);
+        add(slot, newValue);
+    }
+    
+    public int count(E value) {
+        return counts[value.ordinal()];
+    }
+    
+    public BitSet slotsOf(E value) {
+        return slots[value.ordinal()];
+    }
+}
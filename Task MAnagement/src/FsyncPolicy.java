@@ -0,0 +1,15 @@
+public enum FsyncPolicy {
+    ALWAYS("Force every record to disk before returning"),
+    GROUP("Force pending records to disk together on a short interval"),
+    NEVER("Leave flushing to the operating system");
+    
+    private String description;
+    
+    FsyncPolicy(String description) {
+        this.description = description;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+}
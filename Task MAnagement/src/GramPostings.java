@@ -0,0 +1,106 @@
+// Open-addressing map from a trigram, packed into a long by TrigramIndex, to its posting list. Keys are
+// primitive longs so grams are never boxed; a slot is empty when it has no list, so every long is a key.
+final class GramPostings {
+    private static final float LOAD_FACTOR = 0.6f;
+    
+    private long[] keys;
+    private IntPostingList[] lists;
+    private int size;
+    private int resizeThreshold;
+    
+    GramPostings() {
+        allocate(64);
+    }
+    
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        lists = new IntPostingList[capacity];
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+    
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+    
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (lists[index] != null) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+    
+    IntPostingList get(long gram) {
+        int index = indexOf(gram);
+        return index < 0 ? null : lists[index];
+    }
+    
+    IntPostingList getOrCreate(long gram) {
+        int mask = keys.length - 1;
+        int index = hash(gram) & mask;
+        while (lists[index] != null) {
+            if (keys[index] == gram) {
+                return lists[index];
+            }
+            index = (index + 1) & mask;
+        }
+        IntPostingList list = new IntPostingList();
+        keys[index] = gram;
+        lists[index] = list;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return list;
+    }
+    
+    void remove(long gram) {
+        int index = indexOf(gram);
+        if (index >= 0) {
+            shiftBack(index);
+            size--;
+        }
+    }
+    
+    // Backward-shift deletion keeps probe chains intact without tombstones.
+    private void shiftBack(int gap) {
+        int mask = keys.length - 1;
+        int index = gap;
+        while (true) {
+            index = (index + 1) & mask;
+            if (lists[index] == null) {
+                break;
+            }
+            int home = hash(keys[index]) & mask;
+            boolean movable = gap <= index ? (home <= gap || home > index) : (home <= gap && home > index);
+            if (movable) {
+                keys[gap] = keys[index];
+                lists[gap] = lists[index];
+                gap = index;
+            }
+        }
+        keys[gap] = 0;
+        lists[gap] = null;
+    }
+    
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        IntPostingList[] oldLists = lists;
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldLists[i] != null) {
+                int index = hash(oldKeys[i]) & mask;
+                while (lists[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                lists[index] = oldLists[i];
+            }
+        }
+    }
+}
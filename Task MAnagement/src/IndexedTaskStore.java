@@ -0,0 +1,189 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+
+// Single-threaded store: tasks in an ArrayList, with ID, enum and due-date indexes over their slots.
+public class IndexedTaskStore implements TaskStore {
+    private ArrayList<Task> allTasks;
+    private TaskIdIndex slotsById;
+    private EnumSlotIndex<TaskStatus> statusIndex;
+    private EnumSlotIndex<TaskCategory> categoryIndex;
+    private EnumSlotIndex<Priority> priorityIndex;
+    private DueDateIndex dueDateIndex;
+    
+    public IndexedTaskStore() {
+        this.allTasks = new ArrayList<>();
+        this.slotsById = new TaskIdIndex();
+        this.statusIndex = new EnumSlotIndex<>(TaskStatus.class);
+        this.categoryIndex = new EnumSlotIndex<>(TaskCategory.class);
+        this.priorityIndex = new EnumSlotIndex<>(Priority.class);
+        this.dueDateIndex = new DueDateIndex();
+    }
+    
+    @Override
+    public void add(Task task) {
+        int slot = allTasks.size();
+        slotsById.put(task.getId(), slot);
+        allTasks.add(task);
+        statusIndex.add(slot, task.getStatus());
+        categoryIndex.add(slot, task.getCategory());
+        priorityIndex.add(slot, task.getPriority());
+        dueDateIndex.add(task);
+    }
+    
+    @Override
+    public void addAll(Collection<? extends Task> tasks) {
+        allTasks.ensureCapacity(allTasks.size() + tasks.size());
+        slotsById.ensureCapacity(allTasks.size() + tasks.size());
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+    
+    @Override
+    public boolean remove(Task task) {
+        int slot = slotsById.remove(task.getId());
+        if (slot < 0) {
+            return false;
+        }
+        statusIndex.remove(slot, task.getStatus());
+        categoryIndex.remove(slot, task.getCategory());
+        priorityIndex.remove(slot, task.getPriority());
+        dueDateIndex.remove(task);
+        
+        // Fill the hole with the last task instead of shifting everything after it.
+        int lastSlot = allTasks.size() - 1;
+        Task last = allTasks.remove(lastSlot);
+        if (slot < lastSlot) {
+            allTasks.set(slot, last);
+            slotsById.put(last.getId(), slot);
+            statusIndex.move(lastSlot, slot, last.getStatus());
+            categoryIndex.move(lastSlot, slot, last.getCategory());
+            priorityIndex.move(lastSlot, slot, last.getPriority());
+        }
+        return true;
+    }
+    
+    @Override
+    public void onStatusChanged(Task task, TaskStatus oldStatus) {
+        statusIndex.change(slotsById.get(task.getId()), oldStatus, task.getStatus());
+        dueDateIndex.onStatusChanged(task, oldStatus);
+    }
+    
+    @Override
+    public void onPriorityChanged(Task task, Priority oldPriority) {
+        priorityIndex.change(slotsById.get(task.getId()), oldPriority, task.getPriority());
+    }
+    
+    @Override
+    public void onDueDateChanged(Task task, LocalDateTime oldDueDate) {
+        dueDateIndex.onDueDateChanged(task, oldDueDate);
+    }
+    
+    @Override
+    public Task findById(int id) {
+        int slot = slotsById.get(id);
+        return slot < 0 ? null : allTasks.get(slot);
+    }
+    
+    @Override
+    public int size() {
+        return allTasks.size();
+    }
+    
+    @Override
+    public int count(TaskStatus status) {
+        return statusIndex.count(status);
+    }
+    
+    @Override
+    public int count(TaskCategory category) {
+        return categoryIndex.count(category);
+    }
+    
+    @Override
+    public int count(Priority priority) {
+        return priorityIndex.count(priority);
+    }
+    
+    @Override
+    public ArrayList<Task> filter(TaskStatus status) {
+        return tasksInSlots(statusIndex.slotsOf(status));
+    }
+    
+    @Override
+    public ArrayList<Task> filter(TaskCategory category) {
+        return tasksInSlots(categoryIndex.slotsOf(category));
+    }
+    
+    @Override
+    public ArrayList<Task> filter(Priority priority) {
+        return tasksInSlots(priorityIndex.slotsOf(priority));
+    }
+    
+    private ArrayList<Task> tasksInSlots(BitSet slots) {
+        ArrayList<Task> tasks = new ArrayList<>(slots.cardinality());
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            tasks.add(allTasks.get(slot));
+        }
+        return tasks;
+    }
+    
+    // Intersects the bitsets of every enum predicate, then streams the surviving slots.
+    @Override
+    public Stream<Task> candidates(TaskQuery query) {
+        BitSet slots = null;
+        slots = intersect(slots, statusIndex, query.getStatuses());
+        slots = intersect(slots, categoryIndex, query.getCategories());
+        slots = intersect(slots, priorityIndex, query.getPriorities());
+        if (slots == null) {
+            return allTasks.stream();
+        }
+        return slots.stream().mapToObj(allTasks::get);
+    }
+    
+    private static <E extends Enum<E>> BitSet intersect(BitSet slots, EnumSlotIndex<E> index, EnumSet<E> values) {
+        if (values == null) {
+            return slots;
+        }
+        BitSet matching = new BitSet();
+        for (E value : values) {
+            matching.or(index.slotsOf(value));
+        }
+        if (slots == null) {
+            return matching;
+        }
+        slots.and(matching);
+        return slots;
+    }
+    
+    @Override
+    public Collection<Task> dueBefore(LocalDateTime time) {
+        return dueDateIndex.dueBefore(time);
+    }
+    
+    @Override
+    public Collection<Task> dueBetween(LocalDateTime after, LocalDateTime before) {
+        return dueDateIndex.dueBetween(after, before);
+    }
+    
+    @Override
+    public ArrayList<Task> asList() {
+        return allTasks;
+    }
+    
+    @Override
+    public Iterator<Task> iterator() {
+        return allTasks.iterator();
+    }
+    
+    @Override
+    public Spliterator<Task> spliterator() {
+        return allTasks.spliterator();
+    }
+}
@@ -0,0 +1,82 @@
+import java.util.Arrays;
+
+// Sorted array of task IDs, each with a small bit mask of extra data (which fields held the term).
+// New tasks get ever larger IDs, so adds are almost always appends.
+public class IntPostingList {
+    private int[] ids;
+    private byte[] masks;
+    private int size;
+    
+    public IntPostingList() {
+        this.ids = new int[4];
+        this.masks = new byte[4];
+    }
+    
+    // Index of id, or (-(insertion point) - 1) when absent.
+    public int indexOf(int id) {
+        if (size > 0 && ids[size - 1] < id) {
+            return -(size + 1);
+        }
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+    
+    // Adds the mask bits to the entry for id, creating it if needed.
+    public void add(int id, int mask) {
+        int index = indexOf(id);
+        if (index >= 0) {
+            masks[index] |= (byte) mask;
+            return;
+        }
+        int insertAt = -index - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            masks = Arrays.copyOf(masks, size * 2);
+        }
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        System.arraycopy(masks, insertAt, masks, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        masks[insertAt] = (byte) mask;
+        size++;
+    }
+    
+    // Replaces the mask for id; a zero mask drops the entry.
+    public void set(int id, int mask) {
+        if (mask == 0) {
+            remove(id);
+        } else {
+            int index = indexOf(id);
+            if (index >= 0) {
+                masks[index] = (byte) mask;
+            } else {
+                add(id, mask);
+            }
+        }
+    }
+    
+    public boolean remove(int id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        System.arraycopy(masks, index + 1, masks, index, size - index - 1);
+        size--;
+        return true;
+    }
+    
+    public int getId(int index) {
+        return ids[index];
+    }
+    
+    public int getMask(int index) {
+        return masks[index] & 0xFF;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
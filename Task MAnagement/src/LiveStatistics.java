@@ -0,0 +1,166 @@
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters kept current by TaskManager change events, so reads never touch the task store.
+public class LiveStatistics implements TaskChangeListener {
+    private final LongAdder total = new LongAdder();
+    private final LongAdder[] statusCounts = newCounters(TaskStatus.values().length);
+    private final LongAdder[] categoryCounts = newCounters(TaskCategory.values().length);
+    private final LongAdder[] priorityCounts = newCounters(Priority.values().length);
+    private final LongAdder urgentCount = new LongAdder();
+    private final LongAdder completionHoursSum = new LongAdder();
+    private final LongAdder completionTimeCount = new LongAdder();
+    // Tasks counted so far while existing tasks are being seeded; null once seeding is over.
+    private volatile Set<Task> counted;
+    
+    private static LongAdder[] newCounters(int size) {
+        LongAdder[] counters = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+    
+    // Registered as a listener before seeding starts, so changes made meanwhile are not lost;
+    // until a task has been counted, its changes are already part of what seeding will read.
+    void beginSeeding() {
+        counted = ConcurrentHashMap.newKeySet();
+    }
+    
+    // Caller holds the task's lock and has checked it is still stored.
+    void seed(Task task) {
+        if (counted.add(task)) {
+            count(task);
+        }
+    }
+    
+    void endSeeding() {
+        counted = null;
+    }
+    
+    @Override
+    public void onTaskAdded(Task task) {
+        Set<Task> seeding = counted;
+        if (seeding != null && !seeding.add(task)) {
+            return;
+        }
+        count(task);
+    }
+    
+    private void count(Task task) {
+        total.increment();
+        statusCounts[task.getStatus().ordinal()].increment();
+        categoryCounts[task.getCategory().ordinal()].increment();
+        priorityCounts[task.getPriority().ordinal()].increment();
+        countUrgent(task.getStatus(), task.getPriority(), 1);
+        countCompletion(task, task.getStatus(), 1);
+    }
+    
+    @Override
+    public void onTaskRemoved(Task task) {
+        Set<Task> seeding = counted;
+        if (seeding != null && !seeding.remove(task)) {
+            return;
+        }
+        total.decrement();
+        statusCounts[task.getStatus().ordinal()].decrement();
+        categoryCounts[task.getCategory().ordinal()].decrement();
+        priorityCounts[task.getPriority().ordinal()].decrement();
+        countUrgent(task.getStatus(), task.getPriority(), -1);
+        countCompletion(task, task.getStatus(), -1);
+    }
+    
+    @Override
+    public void onStatusChanged(Task task, TaskStatus oldStatus) {
+        if (!isCounted(task)) {
+            return;
+        }
+        statusCounts[oldStatus.ordinal()].decrement();
+        statusCounts[task.getStatus().ordinal()].increment();
+        countUrgent(oldStatus, task.getPriority(), -1);
+        countUrgent(task.getStatus(), task.getPriority(), 1);
+        countCompletion(task, oldStatus, -1);
+        countCompletion(task, task.getStatus(), 1);
+    }
+    
+    @Override
+    public void onPriorityChanged(Task task, Priority oldPriority) {
+        if (!isCounted(task)) {
+            return;
+        }
+        priorityCounts[oldPriority.ordinal()].decrement();
+        priorityCounts[task.getPriority().ordinal()].increment();
+        countUrgent(task.getStatus(), oldPriority, -1);
+        countUrgent(task.getStatus(), task.getPriority(), 1);
+    }
+    
+    private boolean isCounted(Task task) {
+        Set<Task> seeding = counted;
+        return seeding == null || seeding.contains(task);
+    }
+    
+    private void countUrgent(TaskStatus status, Priority priority, int delta) {
+        if (priority.isUrgent() && !status.isComplete()) {
+            urgentCount.add(delta);
+        }
+    }
+    
+    // A completed task's completion date does not change while it stays completed,
+    // so the hours added on entering COMPLETED are the same ones removed on leaving it.
+    private void countCompletion(Task task, TaskStatus status, int delta) {
+        if (status != TaskStatus.COMPLETED) {
+            return;
+        }
+        long hours = (long) task.calculateCompletionTime();
+        if (hours > 0) {
+            completionHoursSum.add(delta * hours);
+            completionTimeCount.add(delta);
+        }
+    }
+    
+    public int getTotal() {
+        return total.intValue();
+    }
+    
+    public int getCount(TaskStatus status) {
+        return statusCounts[status.ordinal()].intValue();
+    }
+    
+    public int getCount(TaskCategory category) {
+        return categoryCounts[category.ordinal()].intValue();
+    }
+    
+    public int getCount(Priority priority) {
+        return priorityCounts[priority.ordinal()].intValue();
+    }
+    
+    public int getUrgentCount() {
+        return urgentCount.intValue();
+    }
+    
+    public double getAverageCompletionTime() {
+        long count = completionTimeCount.sum();
+        if (count == 0) {
+            return 0.0;
+        }
+        return completionHoursSum.doubleValue() / count;
+    }
+    
+    public StatisticsSnapshot toSnapshot(int overdueCount) {
+        int[] statuses = new int[statusCounts.length];
+        for (int i = 0; i < statuses.length; i++) {
+            statuses[i] = statusCounts[i].intValue();
+        }
+        int[] categories = new int[categoryCounts.length];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = categoryCounts[i].intValue();
+        }
+        int[] priorities = new int[priorityCounts.length];
+        for (int i = 0; i < priorities.length; i++) {
+            priorities[i] = priorityCounts[i].intValue();
+        }
+        return new StatisticsSnapshot(getTotal(), statuses, categories, priorities, overdueCount,
+                                      getUrgentCount(), completionHoursSum.doubleValue(), completionTimeCount.intValue());
+    }
+}
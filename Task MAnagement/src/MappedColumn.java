@@ -0,0 +1,75 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// One fixed-width column of the task archive, memory-mapped from its own file. The mapping is
+// replaced by a larger one when the column grows; readers keep using whichever mapping they saw,
+// since the old one stays valid for every row it already covered.
+final class MappedColumn implements Closeable {
+    private static final int MIN_ROWS = 1024;
+    
+    private final FileChannel channel;
+    private final int width;
+    private volatile MappedByteBuffer buffer;
+    private int capacity;
+    
+    MappedColumn(Path file, int width, int rows) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE);
+        this.width = width;
+        int existingRows = (int) Math.min(channel.size() / width, Integer.MAX_VALUE / width);
+        remap(Math.max(Math.max(rows, existingRows), MIN_ROWS));
+    }
+    
+    private void remap(int rows) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) rows * width);
+        capacity = rows;
+    }
+    
+    void ensureCapacity(int rows) throws IOException {
+        if (rows > capacity) {
+            long grown = Math.max(rows, (long) capacity * 2);
+            remap((int) Math.min(grown, Integer.MAX_VALUE / width));
+            if (rows > capacity) {
+                throw new IOException("Archive column is full");
+            }
+        }
+    }
+    
+    byte getByte(int row) {
+        return buffer.get(row);
+    }
+    
+    void putByte(int row, byte value) {
+        buffer.put(row, value);
+    }
+    
+    int getInt(int row) {
+        return buffer.getInt(row * 4);
+    }
+    
+    void putInt(int row, int value) {
+        buffer.putInt(row * 4, value);
+    }
+    
+    long getLong(int row) {
+        return buffer.getLong(row * 8);
+    }
+    
+    void putLong(int row, long value) {
+        buffer.putLong(row * 8, value);
+    }
+    
+    void force() {
+        buffer.force();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
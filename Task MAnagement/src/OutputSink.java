@@ -0,0 +1,12 @@
+// Where TaskManager, tasks and reports write their messages. The console app keeps CONSOLE; code that
+// embeds TaskManager can pick NONE, a BufferedOutputSink or an AsyncOutputSink so that mutations never
+// wait on System.out.
+public interface OutputSink {
+    OutputSink CONSOLE = line -> System.out.println(line);
+    OutputSink NONE = line -> { };
+    
+    void println(String line);
+    
+    default void flush() {
+    }
+}
@@ -0,0 +1,83 @@
+import java.util.concurrent.ForkJoinPool;
+
+// Decides when a full scan is worth splitting across the fork-join pool. The threshold starts at the
+// configured value; in adaptive mode it then follows measured scans. Sequential scans give the cost
+// per task, parallel ones the fixed cost of forking, and the threshold moves to the store size where
+// splitting starts to pay off. On a single-core machine scans always stay sequential.
+public class ParallelScanPolicy {
+    private static final int DEFAULT_THRESHOLD = 100_000;
+    private static final int MIN_THRESHOLD = 4_096;
+    private static final int MIN_SAMPLE_TASKS = 1_000;
+    private static final double SMOOTHING = 0.2;
+    
+    private final int parallelism;
+    private final boolean adaptive;
+    private volatile long threshold;
+    private double sequentialNanosPerTask = Double.NaN;
+    private double parallelOverheadNanos = Double.NaN;
+    
+    public ParallelScanPolicy() {
+        this(DEFAULT_THRESHOLD, true);
+    }
+    
+    public ParallelScanPolicy(long threshold, boolean adaptive) {
+        this(threshold, adaptive, ForkJoinPool.getCommonPoolParallelism());
+    }
+    
+    ParallelScanPolicy(long threshold, boolean adaptive, int parallelism) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold cannot be negative: " + threshold);
+        }
+        this.threshold = threshold;
+        this.adaptive = adaptive;
+        this.parallelism = parallelism;
+    }
+    
+    public static ParallelScanPolicy sequential() {
+        return new ParallelScanPolicy(Long.MAX_VALUE, false);
+    }
+    
+    public boolean shouldParallelize(long tasks) {
+        return parallelism > 1 && tasks >= threshold;
+    }
+    
+    // True until an adaptive policy has timed a sequential scan; measured scans should stay sequential
+    // until then so there is a baseline to compare parallel runs against.
+    public synchronized boolean needsSequentialSample() {
+        return adaptive && Double.isNaN(sequentialNanosPerTask);
+    }
+    
+    public synchronized void recordScan(long tasks, long nanos, boolean parallel) {
+        if (!adaptive || tasks < MIN_SAMPLE_TASKS) {
+            return;
+        }
+        if (!parallel) {
+            sequentialNanosPerTask = smooth(sequentialNanosPerTask, (double) nanos / tasks);
+        } else if (!Double.isNaN(sequentialNanosPerTask)) {
+            // What the parallel scan cost beyond a perfect split of the sequential work.
+            double overhead = nanos - tasks * sequentialNanosPerTask / parallelism;
+            parallelOverheadNanos = smooth(parallelOverheadNanos, Math.max(overhead, 0));
+        }
+        if (!Double.isNaN(sequentialNanosPerTask) && !Double.isNaN(parallelOverheadNanos)) {
+            // Break-even n: n * c = overhead + n * c / p.
+            double breakEven = parallelOverheadNanos * parallelism / (sequentialNanosPerTask * (parallelism - 1));
+            threshold = Math.max(MIN_THRESHOLD, (long) Math.min(breakEven, Long.MAX_VALUE));
+        }
+    }
+    
+    private static double smooth(double average, double sample) {
+        return Double.isNaN(average) ? sample : average + SMOOTHING * (sample - average);
+    }
+    
+    public long getThreshold() {
+        return threshold;
+    }
+    
+    public int getParallelism() {
+        return parallelism;
+    }
+    
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+}
@@ -4,6 +4,7 @@ public class PersonalTask extends Task {
     private String location;
     private boolean recurring;
     private int recurDays;
+    private final int seriesId;
     
     public PersonalTask(String title, String description, Priority priority, LocalDateTime dueDate,
                        String location, boolean recurring, int recurDays) throws InvalidTaskException {
@@ -11,6 +12,38 @@ public class PersonalTask extends Task {
         this.location = location;
         this.recurring = recurring;
         this.recurDays = recurDays;
+        this.seriesId = 0;
+    }
+    
+    PersonalTask(int id, String title, String description, Priority priority, TaskStatus status,
+                 LocalDateTime createdDate, LocalDateTime dueDate, LocalDateTime completedDate,
+                 String location, boolean recurring, int recurDays) {
+        this(id, title, description, priority, status, createdDate, dueDate, completedDate, location, recurring, recurDays, 0);
+    }
+    
+    PersonalTask(int id, String title, String description, Priority priority, TaskStatus status,
+                 LocalDateTime createdDate, LocalDateTime dueDate, LocalDateTime completedDate,
+                 String location, boolean recurring, int recurDays, int seriesId) {
+        super(id, title, description, priority, TaskCategory.PERSONAL, status, createdDate, dueDate, completedDate);
+        this.location = location;
+        this.recurring = recurring;
+        this.recurDays = recurDays;
+        this.seriesId = seriesId;
+    }
+    
+    // A concrete occurrence of a recurring task; it does not recur itself.
+    PersonalTask(PersonalTask series, LocalDateTime dueDate) throws InvalidTaskException {
+        super(series.getTitle(), series.getDescription(), series.getPriority(), TaskCategory.PERSONAL, dueDate);
+        this.location = series.location;
+        this.recurring = false;
+        this.recurDays = series.recurDays;
+        this.seriesId = series.getId();
+    }
+    
+    // The same task as an occurrence of a different series, for imports that renumber tasks.
+    PersonalTask withSeriesId(int newSeriesId) {
+        return new PersonalTask(getId(), getTitle(), getDescription(), getPriority(), getStatus(), getCreatedDate(),
+                                getDueDate(), getCompletedDate(), location, recurring, recurDays, newSeriesId);
     }
     
     @Override
@@ -19,17 +52,21 @@ public class PersonalTask extends Task {
     }
     
     @Override
-    public void displayDetails() {
-        displayBasicInfo();
+    public void displayDetails(OutputSink out) {
+        displayBasicInfo(out);
         if (location != null && !location.isEmpty()) {
-            System.out.println("Location: " + location);
+            out.println("Location: " + location);
         }
         if (recurring) {
-            System.out.println("Recurring: Every " + recurDays + " days");
+            out.println("Recurring: Every " + recurDays + " days");
+        }
+        if (seriesId != 0) {
+            out.println("Repeats task #" + seriesId);
         }
     }
     
     public LocalDateTime getNextOccurrence() {
+        LocalDateTime dueDate = getDueDate();
         if (!recurring || dueDate == null) {
             return null;
         }
@@ -39,4 +76,17 @@ public class PersonalTask extends Task {
     public boolean isRecurring() {
         return recurring;
     }
+    
+    public int getRecurDays() {
+        return recurDays;
+    }
+    
+    // ID of the recurring task this is an occurrence of, or 0.
+    public int getSeriesId() {
+        return seriesId;
+    }
+    
+    public String getLocation() {
+        return location;
+    }
 }
@@ -0,0 +1,94 @@
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Fixed-size ring of the most recently completed tasks. Recording a task claims a sequence number
+// and overwrites the oldest slot; nothing is allocated after construction. Writers never lock: the
+// only wait is for a writer a whole lap behind on the same slot to finish its two stores.
+public class RecentTaskRing {
+    private static final long WRITING = Long.MIN_VALUE;
+    private static final int SPINS_BEFORE_YIELD = 64;
+    
+    private final int capacity;
+    private final AtomicReferenceArray<Task> tasks;
+    private final AtomicLongArray stamps;
+    private final AtomicLong nextSequence;
+    private volatile boolean retired;
+    
+    public RecentTaskRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.tasks = new AtomicReferenceArray<>(capacity);
+        this.stamps = new AtomicLongArray(capacity);
+        this.nextSequence = new AtomicLong();
+        // Each slot starts stamped with the lap before sequence 0, which no reader ever asks for.
+        for (int i = 0; i < capacity; i++) {
+            stamps.set(i, i - capacity);
+        }
+    }
+    
+    // Returns false if the ring was retired by a resize; the caller then records into the new ring.
+    public boolean record(Task task) {
+        if (retired) {
+            return false;
+        }
+        long sequence = nextSequence.getAndIncrement();
+        int slot = (int) (sequence % capacity);
+        // The slot is only taken over from the previous lap's finished write, so an older writer can
+        // never store its task under a newer stamp. The stamp brackets the write, so readers can tell
+        // a half-written slot from a settled one.
+        for (int spins = 0; !stamps.compareAndSet(slot, sequence - capacity, WRITING); spins++) {
+            if (spins < SPINS_BEFORE_YIELD) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        tasks.set(slot, task);
+        stamps.set(slot, sequence);
+        return !retired;
+    }
+    
+    // Stops further records; anything recorded before this returns is in the next snapshot().
+    void retire() {
+        retired = true;
+    }
+    
+    // Newest first. A slot that is being overwritten while we read it is skipped rather than
+    // reported with the wrong task, and a task recorded more than once is listed only once.
+    public ArrayList<Task> snapshot() {
+        long end = nextSequence.get();
+        long start = Math.max(0, end - capacity);
+        ArrayList<Task> recent = new ArrayList<>((int) (end - start));
+        for (long sequence = end - 1; sequence >= start; sequence--) {
+            int slot = (int) (sequence % capacity);
+            if (stamps.get(slot) != sequence) {
+                continue;
+            }
+            Task task = tasks.get(slot);
+            if (stamps.get(slot) != sequence || task == null) {
+                continue;
+            }
+            if (!containsSameTask(recent, task)) {
+                recent.add(task);
+            }
+        }
+        return recent;
+    }
+    
+    private static boolean containsSameTask(ArrayList<Task> tasks, Task task) {
+        for (Task existing : tasks) {
+            if (existing == task) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+}
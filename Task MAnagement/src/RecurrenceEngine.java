@@ -0,0 +1,224 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Turns recurring personal tasks into concrete occurrences over a sliding horizon. Each series sits
+// in a min-heap keyed by its next unmaterialized due date, so a batch only touches series that have
+// something due inside the horizon and loading costs one heap entry per series, not an expansion.
+// The latest occurrence per series is learned from the tasks themselves, so restarts never duplicate
+// an occurrence that already exists. Completing a series' latest occurrence queues the next one, which
+// the following expand() materializes ahead of the horizon scan, even if it lies beyond the horizon.
+public class RecurrenceEngine implements TaskChangeListener {
+    private static final Comparator<Pending> BY_DUE_DATE =
+        Comparator.comparing((Pending pending) -> pending.dueDate).thenComparingInt(pending -> pending.seriesId);
+    
+    private final TaskManager taskManager;
+    private final Duration horizon;
+    private final int batchSize;
+    private final HashMap<Integer, PersonalTask> seriesById;
+    private final HashMap<Integer, LocalDateTime> latestOccurrence;
+    private final HashMap<Integer, LocalDateTime> queuedDueDates;
+    private final PriorityQueue<Pending> upcoming;
+    private final ArrayDeque<Pending> exhausted;
+    private final ScheduledExecutorService expander;
+    
+    private static final class Pending {
+        final int seriesId;
+        final LocalDateTime dueDate;
+        
+        Pending(int seriesId, LocalDateTime dueDate) {
+            this.seriesId = seriesId;
+            this.dueDate = dueDate;
+        }
+    }
+    
+    public RecurrenceEngine(TaskManager taskManager) {
+        this(taskManager, Duration.ofDays(7), 1000);
+    }
+    
+    public RecurrenceEngine(TaskManager taskManager, Duration horizon, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.taskManager = taskManager;
+        this.horizon = horizon;
+        this.batchSize = batchSize;
+        this.seriesById = new HashMap<>();
+        this.latestOccurrence = new HashMap<>();
+        this.queuedDueDates = new HashMap<>();
+        this.upcoming = new PriorityQueue<>(BY_DUE_DATE);
+        this.exhausted = new ArrayDeque<>();
+        this.expander = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-recurrence");
+            thread.setDaemon(true);
+            return thread;
+        });
+        taskManager.addChangeListener(this);
+        for (Task task : taskManager.getAllTasks()) {
+            onTaskAdded(task);
+        }
+    }
+    
+    public void startPeriodicExpansion(long interval, TimeUnit unit) {
+        expander.scheduleWithFixedDelay(() -> {
+            try {
+                expand(LocalDateTime.now());
+            } catch (RuntimeException e) {
+                taskManager.getOutputSink().println("⚠ Recurring task expansion failed: " + e.getMessage());
+            }
+        }, 0, interval, unit);
+    }
+    
+    public void close() {
+        taskManager.removeChangeListener(this);
+        expander.shutdown();
+    }
+    
+    // Materializes at most one batch of occurrences due before now + horizon and returns how many were
+    // created. Tasks are added outside the engine's lock since adding them calls back into it.
+    public int expand(LocalDateTime now) {
+        ArrayList<PersonalTask> series = new ArrayList<>();
+        ArrayList<LocalDateTime> dueDates = new ArrayList<>();
+        synchronized (this) {
+            while (!exhausted.isEmpty() && series.size() < batchSize) {
+                Pending completed = exhausted.poll();
+                PersonalTask next = seriesById.get(completed.seriesId);
+                if (next != null && latestDueDate(next).equals(completed.dueDate)) {
+                    claim(next, nextDueDate(next), now, series, dueDates);
+                }
+            }
+            LocalDateTime limit = now.plus(horizon);
+            while (series.size() < batchSize && !upcoming.isEmpty() && upcoming.peek().dueDate.isBefore(limit)) {
+                Pending pending = upcoming.poll();
+                if (!pending.dueDate.equals(queuedDueDates.get(pending.seriesId))) {
+                    continue;
+                }
+                queuedDueDates.remove(pending.seriesId);
+                PersonalTask next = seriesById.get(pending.seriesId);
+                if (next == null) {
+                    continue;
+                }
+                LocalDateTime dueDate = catchUp(next, nextDueDate(next), now);
+                if (!dueDate.equals(pending.dueDate) || !dueDate.isBefore(limit)) {
+                    enqueue(next.getId(), dueDate);
+                    continue;
+                }
+                claim(next, dueDate, now, series, dueDates);
+            }
+        }
+        int created = 0;
+        for (int i = 0; i < series.size(); i++) {
+            try {
+                taskManager.restoreTask(new PersonalTask(series.get(i), dueDates.get(i)));
+                created++;
+            } catch (InvalidTaskException e) {
+                taskManager.getOutputSink().println("⚠ Could not repeat task #" + series.get(i).getId() + ": "
+                                                    + e.getMessage());
+            }
+        }
+        return created;
+    }
+    
+    // Reserves the occurrence and queues the one after it; caller holds the lock.
+    private void claim(PersonalTask series, LocalDateTime dueDate, LocalDateTime now,
+                       ArrayList<PersonalTask> seriesOut, ArrayList<LocalDateTime> dueDatesOut) {
+        LocalDateTime occurrence = catchUp(series, dueDate, now);
+        latestOccurrence.put(series.getId(), occurrence);
+        seriesOut.add(series);
+        dueDatesOut.add(occurrence);
+        enqueue(series.getId(), occurrence.plusDays(series.getRecurDays()));
+    }
+    
+    // Occurrences that would already be in the past are skipped, keeping the series' cadence.
+    private static LocalDateTime catchUp(PersonalTask series, LocalDateTime dueDate, LocalDateTime now) {
+        if (!dueDate.isBefore(now)) {
+            return dueDate;
+        }
+        long period = series.getRecurDays();
+        long missed = (ChronoUnit.DAYS.between(dueDate, now) + period - 1) / period;
+        LocalDateTime caughtUp = dueDate.plusDays(missed * period);
+        return caughtUp.isBefore(now) ? caughtUp.plusDays(period) : caughtUp;
+    }
+    
+    private LocalDateTime latestDueDate(PersonalTask series) {
+        LocalDateTime latest = latestOccurrence.get(series.getId());
+        LocalDateTime first = series.getDueDate();
+        return latest == null || latest.isBefore(first) ? first : latest;
+    }
+    
+    private LocalDateTime nextDueDate(PersonalTask series) {
+        return latestDueDate(series).plusDays(series.getRecurDays());
+    }
+    
+    private void enqueue(int seriesId, LocalDateTime dueDate) {
+        if (!dueDate.equals(queuedDueDates.put(seriesId, dueDate))) {
+            upcoming.add(new Pending(seriesId, dueDate));
+        }
+    }
+    
+    private static boolean isSeries(Task task) {
+        if (!(task instanceof PersonalTask)) {
+            return false;
+        }
+        PersonalTask personal = (PersonalTask) task;
+        return personal.isRecurring() && personal.getRecurDays() > 0 && personal.getDueDate() != null;
+    }
+    
+    public synchronized int getSeriesCount() {
+        return seriesById.size();
+    }
+    
+    @Override
+    public synchronized void onTaskAdded(Task task) {
+        if (isSeries(task)) {
+            PersonalTask series = (PersonalTask) task;
+            seriesById.put(series.getId(), series);
+            enqueue(series.getId(), nextDueDate(series));
+        } else if (task instanceof PersonalTask && ((PersonalTask) task).getSeriesId() != 0 && task.getDueDate() != null) {
+            latestOccurrence.merge(((PersonalTask) task).getSeriesId(), task.getDueDate(),
+                                   (a, b) -> a.isAfter(b) ? a : b);
+        }
+    }
+    
+    @Override
+    public synchronized void onTaskRemoved(Task task) {
+        if (seriesById.remove(task.getId()) != null) {
+            queuedDueDates.remove(task.getId());
+            latestOccurrence.remove(task.getId());
+        }
+    }
+    
+    @Override
+    public synchronized void onStatusChanged(Task task, TaskStatus oldStatus) {
+        if (!task.getStatus().isComplete() || !(task instanceof PersonalTask)) {
+            return;
+        }
+        PersonalTask personal = (PersonalTask) task;
+        int seriesId = personal.getSeriesId() != 0 ? personal.getSeriesId() : personal.getId();
+        PersonalTask series = seriesById.get(seriesId);
+        if (series != null && latestDueDate(series).equals(task.getDueDate())) {
+            exhausted.add(new Pending(seriesId, task.getDueDate()));
+        }
+    }
+    
+    @Override
+    public synchronized void onDueDateChanged(Task task, LocalDateTime oldDueDate) {
+        if (seriesById.containsKey(task.getId())) {
+            if (task.getDueDate() == null) {
+                onTaskRemoved(task);
+            } else {
+                enqueue(task.getId(), nextDueDate((PersonalTask) task));
+            }
+        } else if (isSeries(task)) {
+            onTaskAdded(task);
+        }
+    }
+}
@@ -1,7 +1,20 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
 
 public class ReportGenerator {
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+    
     private TaskManager taskManager;
     private TaskStatistics statistics;
     
@@ -10,9 +23,16 @@ public class ReportGenerator {
         this.statistics = new TaskStatistics(taskManager);
     }
     
+    public void setArchive(TaskArchive archive) {
+        statistics.setArchive(archive);
+    }
+    
     public String generateSummaryReport() {
+        return generateSummaryReport(statistics.takeSnapshot());
+    }
+    
+    private String generateSummaryReport(StatisticsSnapshot stats) {
         StringBuilder report = new StringBuilder();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
         
         report.append("\n");
         report.append("╔════════════════════════════════════════╗\n");
@@ -20,22 +40,27 @@ public class ReportGenerator {
         report.append("╚════════════════════════════════════════╝\n");
         
         report.append("\n--- Quick Stats ---\n");
-        report.append("Total Tasks: ").append(statistics.calculateTotal()).append("\n");
-        report.append("Completion Rate: ").append(String.format("%.1f%%", statistics.calculateCompletionRate())).append("\n");
+        report.append("Total Tasks: ").append(stats.getTotal()).append("\n");
+        report.append("Completion Rate: ").append(String.format("%.1f%%", stats.getCompletionRate())).append("\n");
+        
+        TaskArchive archive = statistics.getArchive();
+        if (archive != null && archive.size() > 0) {
+            report.append("Archived: ").append(archive.size()).append(" finished tasks\n");
+        }
         
-        int overdue = statistics.countOverdueTasks();
+        int overdue = stats.getOverdueCount();
         if (overdue > 0) {
             report.append("⚠ OVERDUE: ").append(overdue).append(" tasks\n");
         }
         
-        int urgent = statistics.countHighPriorityTasks();
+        int urgent = stats.getUrgentCount();
         if (urgent > 0) {
             report.append("⚠ URGENT: ").append(urgent).append(" tasks\n");
         }
         
         report.append("\n--- Status Distribution ---\n");
         for (TaskStatus status : TaskStatus.values()) {
-            int count = statistics.calculateTotal(status);
+            int count = stats.getCount(status);
             if (count > 0) {
                 report.append(String.format("%-15s : %d\n", status.getDisplayName(), count));
             }
@@ -43,7 +68,7 @@ public class ReportGenerator {
         
         report.append("\n--- Category Distribution ---\n");
         for (TaskCategory category : TaskCategory.values()) {
-            int count = statistics.calculateTotal(category);
+            int count = stats.getCount(category);
             if (count > 0) {
                 report.append(String.format("%-15s : %d\n", category.toString(), count));
             }
@@ -53,44 +78,79 @@ public class ReportGenerator {
     }
     
     public String generateDetailedReport() {
-        StringBuilder report = new StringBuilder();
-        
-        report.append(generateSummaryReport());
-        
-        ArrayList<Task> overdueTasks = taskManager.getOverdueTasks();
-        if (!overdueTasks.isEmpty()) {
-            report.append("\n--- OVERDUE TASKS ---\n");
+        StringWriter report = new StringWriter();
+        try {
+            writeDetailedReport(report);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return report.toString();
+    }
+    
+    // Writes the report line by line as it goes. Overdue and upcoming tasks are read straight from the
+    // store's due-date views, so memory stays flat however many tasks are listed.
+    public void writeDetailedReport(Writer out) throws IOException {
+        out.write(generateSummaryReport());
+        
+        ArrayList<Task> nextUp = taskManager.getNextTasks(5);
+        if (!nextUp.isEmpty()) {
+            out.write("\n--- NEXT UP ---\n");
             int count = 1;
-            for (Task task : overdueTasks) {
-                report.append(count++).append(". ");
-                report.append("[ID:").append(task.getId()).append("] ");
-                report.append(task.getTitle()).append(" (");
-                report.append(task.getPriority()).append(")\n");
+            for (Task task : nextUp) {
+                writeTaskLine(out, count++, task);
+                writePriority(out, task);
             }
         }
         
-        ArrayList<Task> upcoming = taskManager.getUpcomingTasks(7);
-        if (!upcoming.isEmpty()) {
-            report.append("\n--- UPCOMING (Next 7 Days) ---\n");
+        LocalDateTime now = LocalDateTime.now();
+        Iterator<Task> overdueTasks = taskManager.overdueTasks(now).iterator();
+        if (overdueTasks.hasNext()) {
+            out.write("\n--- OVERDUE TASKS ---\n");
             int count = 1;
-            for (Task task : upcoming) {
-                report.append(count++).append(". ");
-                report.append("[ID:").append(task.getId()).append("] ");
-                report.append(task.getTitle()).append(" - Due in ");
-                report.append(task.getDaysUntilDue()).append(" days\n");
+            while (overdueTasks.hasNext()) {
+                Task task = overdueTasks.next();
+                writeTaskLine(out, count++, task);
+                writePriority(out, task);
             }
         }
         
-        return report.toString();
+        Iterator<Task> upcoming = taskManager.upcomingTasks(now, 7).iterator();
+        if (upcoming.hasNext()) {
+            out.write("\n--- UPCOMING (Next 7 Days) ---\n");
+            int count = 1;
+            while (upcoming.hasNext()) {
+                Task task = upcoming.next();
+                writeTaskLine(out, count++, task);
+                out.write(" - Due in ");
+                out.write(Long.toString(task.getDaysUntilDue()));
+                out.write(" days\n");
+            }
+        }
     }
     
-    public void exportReport(String filename) {
-        String report = generateDetailedReport();
-        System.out.println(report);
-        System.out.println("\n[Note: In a full implementation, this would save to: " + filename + "]");
+    private static void writeTaskLine(Writer out, int number, Task task) throws IOException {
+        out.write(Integer.toString(number));
+        out.write(". [ID:");
+        out.write(Integer.toString(task.getId()));
+        out.write("] ");
+        out.write(task.getTitle());
+    }
+    
+    private static void writePriority(Writer out, Task task) throws IOException {
+        out.write(" (");
+        out.write(task.getPriority().toString());
+        out.write(")\n");
+    }
+    
+    public void exportReport(String filename) throws IOException {
+        try (OutputStream file = Files.newOutputStream(Paths.get(filename));
+             Writer out = new BufferedWriter(new OutputStreamWriter(file, StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE)) {
+            writeDetailedReport(out);
+        }
     }
     
     public void displayProductivityAnalysis() {
+        StatisticsSnapshot stats = statistics.takeSnapshot();
         StringBuilder analysis = new StringBuilder();
         
         analysis.append("\n");
@@ -98,7 +158,7 @@ public class ReportGenerator {
         analysis.append("      PRODUCTIVITY ANALYSIS\n");
         analysis.append("═══════════════════════════════════════\n");
         
-        double avgCompletionTime = statistics.calculateAverageCompletionTime();
+        double avgCompletionTime = stats.getAverageCompletionTime();
         if (avgCompletionTime > 0) {
             analysis.append("\nAverage task completion: ");
             analysis.append(String.format("%.1f hours", avgCompletionTime));
@@ -113,7 +173,7 @@ public class ReportGenerator {
             analysis.append("\n");
         }
         
-        double completionRate = statistics.calculateCompletionRate();
+        double completionRate = stats.getCompletionRate();
         analysis.append("\nCompletion rate: ");
         analysis.append(String.format("%.1f%%", completionRate));
         
@@ -128,14 +188,14 @@ public class ReportGenerator {
         }
         analysis.append("\n");
         
-        Priority mostCommon = statistics.getMostCommonPriority();
+        Priority mostCommon = stats.getMostCommonPriority();
         analysis.append("\nMost common priority: ").append(mostCommon).append("\n");
         
-        TaskCategory mostActive = statistics.getMostActiveCategory();
+        TaskCategory mostActive = stats.getMostActiveCategory();
         analysis.append("Most active category: ").append(mostActive).append("\n");
         
-        int overdue = statistics.countOverdueTasks();
-        int total = statistics.calculateTotal();
+        int overdue = stats.getOverdueCount();
+        int total = stats.getTotal();
         if (total > 0) {
             double overduePercentage = (overdue * 100.0) / total;
             analysis.append("\nOverdue rate: ").append(String.format("%.1f%%", overduePercentage));
@@ -150,6 +210,6 @@ public class ReportGenerator {
             analysis.append("\n");
         }
         
-        System.out.println(analysis.toString());
+        taskManager.getOutputSink().println(analysis.toString());
     }
 }
@@ -16,46 +16,80 @@ public class ShoppingTask extends Task {
         this.store = store;
     }
     
+    ShoppingTask(int id, String title, String description, Priority priority, TaskStatus status,
+                 LocalDateTime createdDate, LocalDateTime dueDate, LocalDateTime completedDate,
+                 ArrayList<String> items, double estimatedBudget, double actualCost, String store) {
+        super(id, title, description, priority, TaskCategory.SHOPPING, status, createdDate, dueDate, completedDate);
+        this.items = items;
+        this.estimatedBudget = estimatedBudget;
+        this.actualCost = actualCost;
+        this.store = store;
+    }
+    
     @Override
     public String getTaskType() {
         return "Shopping Task";
     }
     
     @Override
-    public void displayDetails() {
-        displayBasicInfo();
-        System.out.println("Store: " + store);
-        System.out.println("Estimated budget: $" + String.format("%.2f", estimatedBudget));
+    public void displayDetails(OutputSink out) {
+        displayBasicInfo(out);
+        out.println("Store: " + store);
+        out.println("Estimated budget: $" + String.format("%.2f", estimatedBudget));
         
         if (actualCost > 0) {
-            System.out.println("Actual cost: $" + String.format("%.2f", actualCost));
+            out.println("Actual cost: $" + String.format("%.2f", actualCost));
             double difference = actualCost - estimatedBudget;
             if (difference > 0) {
-                System.out.println("Over budget by: $" + String.format("%.2f", difference));
+                out.println("Over budget by: $" + String.format("%.2f", difference));
             } else {
-                System.out.println("Under budget by: $" + String.format("%.2f", Math.abs(difference)));
+                out.println("Under budget by: $" + String.format("%.2f", Math.abs(difference)));
             }
         }
         
         if (!items.isEmpty()) {
-            System.out.println("Shopping list (" + items.size() + " items):");
+            out.println("Shopping list (" + items.size() + " items):");
             int count = 1;
             for (String item : items) {
-                System.out.println("  " + count++ + ". " + item);
+                out.println("  " + count++ + ". " + item);
             }
         }
     }
     
     public void addItem(String item) {
-        items.add(item);
+        TaskEventBus.rejectHandlerThread();
+        synchronized (this) {
+            items.add(item);
+            TaskChangeListener listener = getChangeListener();
+            if (listener != null) {
+                listener.onItemAdded(this, item);
+            }
+        }
     }
     
     public void removeItem(String item) {
-        items.remove(item);
+        TaskEventBus.rejectHandlerThread();
+        synchronized (this) {
+            TaskChangeListener listener = getChangeListener();
+            if (items.remove(item) && listener != null) {
+                listener.onItemRemoved(this, item);
+            }
+        }
     }
     
     public void setActualCost(double cost) {
-        this.actualCost = cost;
+        TaskEventBus.rejectHandlerThread();
+        synchronized (this) {
+            double oldCost = actualCost;
+            if (Double.compare(oldCost, cost) == 0) {
+                return;
+            }
+            this.actualCost = cost;
+            TaskChangeListener listener = getChangeListener();
+            if (listener != null) {
+                listener.onActualCostChanged(this, oldCost);
+            }
+        }
     }
     
     public double calculateSavings() {
@@ -65,4 +99,20 @@ public class ShoppingTask extends Task {
     public int getItemCount() {
         return items.size();
     }
+    
+    public synchronized ArrayList<String> getItems() {
+        return new ArrayList<>(items);
+    }
+    
+    public double getEstimatedBudget() {
+        return estimatedBudget;
+    }
+    
+    public double getActualCost() {
+        return actualCost;
+    }
+    
+    public String getStore() {
+        return store;
+    }
 }
@@ -0,0 +1,209 @@
+import java.time.LocalDateTime;
+
+// Immutable result of one pass over the task store; every dashboard figure is read from here.
+public final class StatisticsSnapshot {
+    private final int total;
+    private final int[] statusCounts;
+    private final int[] categoryCounts;
+    private final int[] priorityCounts;
+    private final int overdueCount;
+    private final int urgentCount;
+    private final double completionHoursSum;
+    private final int completionTimeCount;
+    
+    StatisticsSnapshot(int total, int[] statusCounts, int[] categoryCounts, int[] priorityCounts,
+                       int overdueCount, int urgentCount, double completionHoursSum, int completionTimeCount) {
+        this.total = total;
+        this.statusCounts = statusCounts.clone();
+        this.categoryCounts = categoryCounts.clone();
+        this.priorityCounts = priorityCounts.clone();
+        this.overdueCount = overdueCount;
+        this.urgentCount = urgentCount;
+        this.completionHoursSum = completionHoursSum;
+        this.completionTimeCount = completionTimeCount;
+    }
+    
+    public static StatisticsSnapshot capture(Iterable<Task> tasks) {
+        Builder builder = new Builder(LocalDateTime.now());
+        for (Task task : tasks) {
+            builder.accept(task);
+        }
+        return builder.build();
+    }
+    
+    public StatisticsSnapshot combine(StatisticsSnapshot other) {
+        return new StatisticsSnapshot(total + other.total, sum(statusCounts, other.statusCounts),
+                                      sum(categoryCounts, other.categoryCounts), sum(priorityCounts, other.priorityCounts),
+                                      overdueCount + other.overdueCount, urgentCount + other.urgentCount,
+                                      completionHoursSum + other.completionHoursSum,
+                                      completionTimeCount + other.completionTimeCount);
+    }
+    
+    private static int[] sum(int[] left, int[] right) {
+        int[] result = left.clone();
+        for (int i = 0; i < result.length; i++) {
+            result[i] += right[i];
+        }
+        return result;
+    }
+    
+    public int getTotal() {
+        return total;
+    }
+    
+    public int getCount(TaskStatus status) {
+        return statusCounts[status.ordinal()];
+    }
+    
+    public int getCount(TaskCategory category) {
+        return categoryCounts[category.ordinal()];
+    }
+    
+    public int getCount(Priority priority) {
+        return priorityCounts[priority.ordinal()];
+    }
+    
+    public int getOverdueCount() {
+        return overdueCount;
+    }
+    
+    public int getUrgentCount() {
+        return urgentCount;
+    }
+    
+    public double getCompletionRate() {
+        if (total == 0) {
+            return 0.0;
+        }
+        return (getCount(TaskStatus.COMPLETED) * 100.0) / total;
+    }
+    
+    public double getAverageCompletionTime() {
+        if (completionTimeCount == 0) {
+            return 0.0;
+        }
+        return completionHoursSum / completionTimeCount;
+    }
+    
+    public Priority getMostCommonPriority() {
+        int maxIndex = 0;
+        for (int i = 1; i < priorityCounts.length; i++) {
+            if (priorityCounts[i] > priorityCounts[maxIndex]) {
+                maxIndex = i;
+            }
+        }
+        return Priority.values()[maxIndex];
+    }
+    
+    public TaskCategory getMostActiveCategory() {
+        int maxCount = 0;
+        TaskCategory mostActive = TaskCategory.OTHER;
+        for (TaskCategory category : TaskCategory.values()) {
+            if (categoryCounts[category.ordinal()] > maxCount) {
+                maxCount = categoryCounts[category.ordinal()];
+                mostActive = category;
+            }
+        }
+        return mostActive;
+    }
+    
+    public static final class Builder {
+        private static final int COMPLETED = TaskStatus.COMPLETED.ordinal();
+        private static final boolean[] COMPLETE_STATUS = completeStatuses();
+        private static final boolean[] URGENT_PRIORITY = urgentPriorities();
+        
+        private final LocalDateTime now;
+        private int total;
+        private final int[] statusCounts = new int[TaskStatus.values().length];
+        private final int[] categoryCounts = new int[TaskCategory.values().length];
+        private final int[] priorityCounts = new int[Priority.values().length];
+        private int overdueCount;
+        private int urgentCount;
+        private double completionHoursSum;
+        private int completionTimeCount;
+        
+        public Builder(LocalDateTime now) {
+            this.now = now;
+        }
+        
+        private static boolean[] completeStatuses() {
+            boolean[] complete = new boolean[TaskStatus.values().length];
+            for (TaskStatus status : TaskStatus.values()) {
+                complete[status.ordinal()] = status.isComplete();
+            }
+            return complete;
+        }
+        
+        private static boolean[] urgentPriorities() {
+            boolean[] urgent = new boolean[Priority.values().length];
+            for (Priority priority : Priority.values()) {
+                urgent[priority.ordinal()] = priority.isUrgent();
+            }
+            return urgent;
+        }
+        
+        public void accept(Task task) {
+            TaskStatus status = task.getStatus();
+            boolean overdue = false;
+            double completionHours = -1;
+            if (!status.isComplete()) {
+                LocalDateTime dueDate = task.getDueDate();
+                overdue = dueDate != null && now.isAfter(dueDate);
+            } else if (status == TaskStatus.COMPLETED) {
+                completionHours = task.calculateCompletionTime();
+            }
+            accept(status.ordinal(), task.getCategory().ordinal(), task.getPriority().ordinal(), overdue, completionHours);
+        }
+        
+        // Counts a finished task from its column values alone, without a Task object.
+        public void acceptFinished(TaskStatus status, TaskCategory category, Priority priority, double completionHours) {
+            if (!status.isComplete()) {
+                throw new IllegalArgumentException("Not a finished status: " + status);
+            }
+            accept(status.ordinal(), category.ordinal(), priority.ordinal(), false, completionHours);
+        }
+        
+        // Counts one task from raw ordinals, for stores that never build the Task; hours <= 0 are ignored.
+        void accept(int status, int category, int priority, boolean overdue, double completionHours) {
+            total++;
+            statusCounts[status]++;
+            categoryCounts[category]++;
+            priorityCounts[priority]++;
+            if (!COMPLETE_STATUS[status]) {
+                if (overdue) {
+                    overdueCount++;
+                }
+                if (URGENT_PRIORITY[priority]) {
+                    urgentCount++;
+                }
+            } else if (status == COMPLETED && completionHours > 0) {
+                completionHoursSum += completionHours;
+                completionTimeCount++;
+            }
+        }
+        
+        // Folds a partial result from another thread into this one.
+        public Builder merge(Builder other) {
+            total += other.total;
+            for (int i = 0; i < statusCounts.length; i++) {
+                statusCounts[i] += other.statusCounts[i];
+            }
+            for (int i = 0; i < categoryCounts.length; i++) {
+                categoryCounts[i] += other.categoryCounts[i];
+            }
+            for (int i = 0; i < priorityCounts.length; i++) {
+                priorityCounts[i] += other.priorityCounts[i];
+            }
+            overdueCount += other.overdueCount;
+            urgentCount += other.urgentCount;
+            completionHoursSum += other.completionHoursSum;
+            completionTimeCount += other.completionTimeCount;
+            return this;
+        }
+        
+        public StatisticsSnapshot build() {
+            return new StatisticsSnapshot(total, statusCounts, categoryCounts, priorityCounts,
+                                          overdueCount, urgentCount, completionHoursSum, completionTimeCount);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Memory-mapped open-addressing table from the hash of a string's UTF-8 bytes to its entry in the
+// archive's string heap, so deduplicating titles never needs the strings themselves on the Java heap.
+// The file is only an accelerator: a match is confirmed by comparing the heap bytes, and the table is
+// rebuilt from the heap whenever it covers entries the heap no longer has.
+final class StringDictionary implements Closeable {
+    private static final int MAGIC = 0x54445354;
+    private static final int HEADER_BYTES = 16;
+    private static final int SLOT_BYTES = 8;
+    private static final int MIN_SLOTS = 1024;
+    private static final int MAX_SLOTS = 1 << 28;
+    private static final float LOAD_FACTOR = 0.6f;
+    
+    interface HeapReader {
+        byte[] read(int entry) throws IOException;
+    }
+    
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int slots;
+    private int used;
+    
+    StringDictionary(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE);
+        if (channel.size() >= HEADER_BYTES) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            int storedSlots = buffer.getInt(4);
+            if (buffer.getInt(0) == MAGIC && Integer.bitCount(storedSlots) == 1 && storedSlots <= MAX_SLOTS
+                && channel.size() >= HEADER_BYTES + (long) storedSlots * SLOT_BYTES) {
+                map(storedSlots);
+                used = buffer.getInt(12);
+                return;
+            }
+        }
+        clear(MIN_SLOTS);
+    }
+    
+    private void map(int slotCount) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) slotCount * SLOT_BYTES);
+        slots = slotCount;
+    }
+    
+    // Drops every slot; the caller re-adds the heap's strings from entry 0.
+    void clear() throws IOException {
+        clear(MIN_SLOTS);
+    }
+    
+    private void clear(int slotCount) throws IOException {
+        channel.truncate(0);
+        map(slotCount);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, slotCount);
+        buffer.putInt(8, 0);
+        buffer.putInt(12, 0);
+        used = 0;
+    }
+    
+    // The number of heap entries, of any kind, already looked at when the table was last written.
+    int coveredEntries() {
+        return buffer.getInt(8);
+    }
+    
+    void setCoveredEntries(int entries) {
+        buffer.putInt(8, entries);
+    }
+    
+    static int hash(byte[] bytes) {
+        int hash = Arrays.hashCode(bytes);
+        return hash ^ (hash >>> 16);
+    }
+    
+    // Returns the heap entry holding exactly these bytes, or -1. Entries at or past heapEntries are
+    // ignored, as they can only be left over from a heap tail cut off after a crash.
+    int find(byte[] bytes, int heapEntries, HeapReader heap) throws IOException {
+        int hash = hash(bytes);
+        int mask = slots - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int position = HEADER_BYTES + slot * SLOT_BYTES;
+            int entry = buffer.getInt(position + 4) - 1;
+            if (entry < 0) {
+                return -1;
+            }
+            if (buffer.getInt(position) == hash && entry < heapEntries && Arrays.equals(heap.read(entry), bytes)) {
+                return entry;
+            }
+        }
+    }
+    
+    void add(int hash, int entry) throws IOException {
+        if (used + 1 > slots * LOAD_FACTOR) {
+            grow();
+        }
+        insert(buffer, slots, hash, entry);
+        buffer.putInt(12, ++used);
+    }
+    
+    private static void insert(MappedByteBuffer target, int slotCount, int hash, int entry) {
+        int mask = slotCount - 1;
+        int slot = hash & mask;
+        while (target.getInt(HEADER_BYTES + slot * SLOT_BYTES + 4) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        target.putInt(HEADER_BYTES + slot * SLOT_BYTES, hash);
+        target.putInt(HEADER_BYTES + slot * SLOT_BYTES + 4, entry + 1);
+    }
+    
+    // Rehashes into a file twice the size and swaps it in, so a crash mid-way leaves the old table whole.
+    private void grow() throws IOException {
+        if (slots >= MAX_SLOTS) {
+            throw new IOException("Archive string dictionary is full");
+        }
+        int grownSlots = slots * 2;
+        Path grownFile = file.resolveSibling(file.getFileName() + ".tmp");
+        FileChannel grownChannel = FileChannel.open(grownFile, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer grown = grownChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                                                      HEADER_BYTES + (long) grownSlots * SLOT_BYTES);
+            for (int slot = 0; slot < slots; slot++) {
+                int position = HEADER_BYTES + slot * SLOT_BYTES;
+                int entry = buffer.getInt(position + 4);
+                if (entry != 0) {
+                    insert(grown, grownSlots, buffer.getInt(position), entry - 1);
+                }
+            }
+            grown.putInt(0, MAGIC);
+            grown.putInt(4, grownSlots);
+            grown.putInt(8, coveredEntries());
+            grown.putInt(12, used);
+            grown.force();
+            Files.move(grownFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel.close();
+            channel = grownChannel;
+            buffer = grown;
+            slots = grownSlots;
+        } catch (IOException e) {
+            grownChannel.close();
+            Files.deleteIfExists(grownFile);
+            throw e;
+        }
+    }
+    
+    void force() {
+        buffer.force();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
@@ -1,32 +1,101 @@
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class Task {
-    protected static int nextId = 1;
+    private static final AtomicInteger ID_SEQUENCE = new AtomicInteger(1);
+    static final long NO_DATE = Long.MIN_VALUE;
+    private static final Priority[] PRIORITIES = Priority.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final TaskCategory[] CATEGORIES = TaskCategory.values();
     protected int id;
-    protected String title;
+    protected volatile String title;
     protected String description;
-    protected Priority priority;
-    protected TaskStatus status;
-    protected TaskCategory category;
-    protected LocalDateTime createdDate;
-    protected LocalDateTime dueDate;
-    protected LocalDateTime completedDate;
+    // Dates are held as epoch microseconds (UTC) and enums as ordinals, so a task carries no
+    // LocalDateTime graphs of its own; the accessors rebuild the usual types on demand.
+    private final long createdMicros;
+    private volatile long dueMicros;
+    private volatile long completedMicros;
+    private volatile byte priority;
+    private volatile byte status;
+    private final byte category;
+    private TaskChangeListener changeListener;
     
     public Task(String title, String description, Priority priority, TaskCategory category, LocalDateTime dueDate) throws InvalidTaskException {
         validateTask(title, description);
-        this.id = nextId++;
+        if (dueDate != null && !isEncodable(dueDate)) {
+            throw new InvalidTaskException("Due date is too far in the future!");
+        }
+        this.id = ID_SEQUENCE.getAndIncrement();
+        this.title = title;
+        this.description = description;
+        this.priority = (byte) priority.ordinal();
+        this.category = (byte) category.ordinal();
+        this.status = (byte) TaskStatus.TODO.ordinal();
+        this.createdMicros = toMicros(LocalDateTime.now());
+        this.dueMicros = toMicros(dueDate);
+        this.completedMicros = NO_DATE;
+    }
+    
+    // Rebuilds a task exactly as it was persisted, keeping its original ID.
+    protected Task(int id, String title, String description, Priority priority, TaskCategory category, TaskStatus status,
+                   LocalDateTime createdDate, LocalDateTime dueDate, LocalDateTime completedDate) {
+        this.id = id;
         this.title = title;
         this.description = description;
-        this.priority = priority;
-        this.category = category;
-        this.status = TaskStatus.TODO;
-        this.createdDate = LocalDateTime.now();
-        this.dueDate = dueDate;
+        this.priority = (byte) priority.ordinal();
+        this.category = (byte) category.ordinal();
+        this.status = (byte) status.ordinal();
+        this.createdMicros = toMicros(createdDate);
+        this.dueMicros = toMicros(dueDate);
+        this.completedMicros = toMicros(completedDate);
+        if (id >= ID_SEQUENCE.get()) {
+            ID_SEQUENCE.accumulateAndGet(id + 1, Math::max);
+        }
+    }
+    
+    private static boolean isEncodable(LocalDateTime date) {
+        try {
+            toMicros(date);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
+    static long toMicros(LocalDateTime date) {
+        if (date == null) {
+            return NO_DATE;
+        }
+        try {
+            long micros = Math.multiplyExact(date.toEpochSecond(ZoneOffset.UTC), 1_000_000L);
+            return Math.addExact(micros, date.getNano() / 1000);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Date out of range: " + date);
+        }
+    }
+    
+    static LocalDateTime fromMicros(long micros) {
+        if (micros == NO_DATE) {
+            return null;
+        }
+        long seconds = Math.floorDiv(micros, 1_000_000L);
+        int nanos = (int) Math.floorMod(micros, 1_000_000L) * 1000;
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+    
+    // Hands out count consecutive IDs at once, for loaders that build many tasks in parallel.
+    static int reserveIds(int count) {
+        return ID_SEQUENCE.getAndAdd(count);
     }
     
     protected void validateTask(String title, String description) throws InvalidTaskException {
+        validateTitle(title);
+    }
+    
+    static void validateTitle(String title) throws InvalidTaskException {
         if (title == null || title.trim().isEmpty()) {
             throw new InvalidTaskException("Task title cannot be empty!");
         }
@@ -37,28 +106,68 @@ public abstract class Task {
     
     public abstract String getTaskType();
     
-    public abstract void displayDetails();
+    public void displayDetails() {
+        displayDetails(OutputSink.CONSOLE);
+    }
+    
+    public abstract void displayDetails(OutputSink out);
     
     public void markComplete() {
-        this.status = TaskStatus.COMPLETED;
-        this.completedDate = LocalDateTime.now();
+        TaskEventBus.rejectHandlerThread();
+        synchronized (this) {
+            TaskStatus oldStatus = getStatus();
+            if (oldStatus == TaskStatus.COMPLETED) {
+                return;
+            }
+            this.completedMicros = toMicros(LocalDateTime.now());
+            this.status = (byte) TaskStatus.COMPLETED.ordinal();
+            if (changeListener != null) {
+                changeListener.onStatusChanged(this, oldStatus);
+            }
+        }
     }
     
     public void updateStatus(TaskStatus newStatus) {
-        this.status = newStatus;
-        if (newStatus == TaskStatus.COMPLETED && completedDate == null) {
-            completedDate = LocalDateTime.now();
+        TaskEventBus.rejectHandlerThread();
+        synchronized (this) {
+            TaskStatus oldStatus = getStatus();
+            if (newStatus == TaskStatus.COMPLETED && completedMicros == NO_DATE) {
+                completedMicros = toMicros(LocalDateTime.now());
+            }
+            this.status = (byte) newStatus.ordinal();
+            if (changeListener != null && oldStatus != newStatus) {
+                changeListener.onStatusChanged(this, oldStatus);
+            }
+        }
+    }
+    
+    // Listeners see a task leave COMPLETED with the completion date it was counted under; the
+    // restored date only takes effect after they have been told.
+    synchronized void restoreStatus(TaskStatus newStatus, LocalDateTime completedDate) {
+        TaskStatus oldStatus = getStatus();
+        boolean leavingCompleted = oldStatus == TaskStatus.COMPLETED;
+        if (!leavingCompleted) {
+            this.completedMicros = toMicros(completedDate);
+        }
+        this.status = (byte) newStatus.ordinal();
+        if (changeListener != null && oldStatus != newStatus) {
+            changeListener.onStatusChanged(this, oldStatus);
+        }
+        if (leavingCompleted) {
+            this.completedMicros = toMicros(completedDate);
         }
     }
     
     public boolean isOverdue() {
-        if (status.isComplete() || dueDate == null) {
+        long due = dueMicros;
+        if (getStatus().isComplete() || due == NO_DATE) {
             return false;
         }
-        return LocalDateTime.now().isAfter(dueDate);
+        return toMicros(LocalDateTime.now()) > due;
     }
     
     public long getDaysUntilDue() {
+        LocalDateTime dueDate = getDueDate();
         if (dueDate == null) {
             return -1;
         }
@@ -66,35 +175,43 @@ public abstract class Task {
     }
     
     public double calculateCompletionTime() {
+        LocalDateTime completedDate = getCompletedDate();
         if (completedDate == null) {
             return -1;
         }
-        return ChronoUnit.HOURS.between(createdDate, completedDate);
+        return ChronoUnit.HOURS.between(getCreatedDate(), completedDate);
     }
     
     public void displayBasicInfo() {
+        displayBasicInfo(OutputSink.CONSOLE);
+    }
+    
+    public void displayBasicInfo(OutputSink out) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        TaskStatus status = getStatus();
+        LocalDateTime dueDate = getDueDate();
+        LocalDateTime completedDate = getCompletedDate();
         
-        System.out.println("\nID: " + id + " | " + category.getIcon() + " " + title);
-        System.out.println("Type: " + getTaskType());
-        System.out.println("Description: " + description);
-        System.out.println("Priority: " + priority.getDescription());
-        System.out.println("Status: " + status.getDisplayName());
-        System.out.println("Created: " + createdDate.format(formatter));
+        out.println("\nID: " + id + " | " + getCategory().getIcon() + " " + title);
+        out.println("Type: " + getTaskType());
+        out.println("Description: " + description);
+        out.println("Priority: " + getPriority().getDescription());
+        out.println("Status: " + status.getDisplayName());
+        out.println("Created: " + getCreatedDate().format(formatter));
         
         if (dueDate != null) {
-            System.out.println("Due: " + dueDate.format(formatter));
+            out.println("Due: " + dueDate.format(formatter));
             if (isOverdue()) {
-                System.out.println(">>> OVERDUE! <<<");
+                out.println(">>> OVERDUE! <<<");
             } else if (!status.isComplete()) {
                 long daysLeft = getDaysUntilDue();
-                System.out.println("Days until due: " + daysLeft);
+                out.println("Days until due: " + daysLeft);
             }
         }
         
         if (completedDate != null) {
-            System.out.println("Completed: " + completedDate.format(formatter));
-            System.out.println("Completion time: " + calculateCompletionTime() + " hours");
+            out.println("Completed: " + completedDate.format(formatter));
+            out.println("Completion time: " + calculateCompletionTime() + " hours");
         }
     }
     
@@ -107,33 +224,92 @@ public abstract class Task {
     }
     
     public void setTitle(String title) throws InvalidTaskException {
-        if (title == null || title.trim().isEmpty()) {
-            throw new InvalidTaskException("Task title cannot be empty!");
+        TaskEventBus.rejectHandlerThread();
+        synchronized (this) {
+            if (title == null || title.trim().isEmpty()) {
+                throw new InvalidTaskException("Task title cannot be empty!");
+            }
+            String oldTitle = this.title;
+            this.title = title;
+            if (changeListener != null && !title.equals(oldTitle)) {
+                changeListener.onTitleChanged(this, oldTitle);
+            }
         }
-        this.title = title;
+    }
+    
+    public String getDescription() {
+        return description;
     }
     
     public Priority getPriority() {
-        return priority;
+        return PRIORITIES[priority];
     }
     
     public void setPriority(Priority priority) {
-        this.priority = priority;
+        TaskEventBus.rejectHandlerThread();
+        synchronized (this) {
+            Priority oldPriority = getPriority();
+            this.priority = (byte) priority.ordinal();
+            if (changeListener != null && oldPriority != priority) {
+                changeListener.onPriorityChanged(this, oldPriority);
+            }
+        }
     }
     
     public TaskStatus getStatus() {
-        return status;
+        return STATUSES[status];
     }
     
     public TaskCategory getCategory() {
-        return category;
+        return CATEGORIES[category];
+    }
+    
+    public LocalDateTime getCreatedDate() {
+        return fromMicros(createdMicros);
     }
     
     public LocalDateTime getDueDate() {
-        return dueDate;
+        return fromMicros(dueMicros);
+    }
+    
+    public LocalDateTime getCompletedDate() {
+        return fromMicros(completedMicros);
+    }
+    
+    // Raw column values, for stores that keep their own primitive copies.
+    long getCreatedMicros() {
+        return createdMicros;
+    }
+    
+    long getDueMicros() {
+        return dueMicros;
+    }
+    
+    long getCompletedMicros() {
+        return completedMicros;
     }
     
     public void setDueDate(LocalDateTime dueDate) {
-        this.dueDate = dueDate;
+        TaskEventBus.rejectHandlerThread();
+        synchronized (this) {
+            long newDueMicros = toMicros(dueDate);
+            if (newDueMicros == dueMicros) {
+                return;
+            }
+            LocalDateTime oldDueDate = getDueDate();
+            this.dueMicros = newDueMicros;
+            if (changeListener != null) {
+                changeListener.onDueDateChanged(this, oldDueDate);
+            }
+        }
+    }
+    
+    synchronized void setChangeListener(TaskChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+    
+    // For subclasses reporting changes to their own fields; callers hold the task's lock.
+    protected TaskChangeListener getChangeListener() {
+        return changeListener;
     }
 }
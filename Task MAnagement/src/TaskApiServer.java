@@ -0,0 +1,349 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// JSON API over a TaskManager on the JDK's built-in HTTP server:
+//
+//   GET    /tasks                  filter: status, category, priority (comma lists), assignee, q,
+//                                  dueWithinDays, open, urgent, sort (due or priority), limit
+//   POST   /tasks                  create; body as written by TaskJsonCodec (id and category ignored)
+//   GET    /tasks/{id}
+//   PATCH  /tasks/{id}             update title, priority, status and/or due (PUT does the same)
+//   POST   /tasks/{id}/complete
+//   DELETE /tasks/{id}
+//   GET    /search?q=&limit=       ranked word search
+//   GET    /next?limit=            open tasks to work on next
+//   GET    /stats
+//
+// Each exchange runs on its own virtual thread when the runtime has them, otherwise on a fixed pool.
+// Responses are encoded by TaskJsonCodec straight into a small buffer that is passed to the connection
+// each time it fills, with chunked encoding, so a large listing is never built up in memory first.
+public class TaskApiServer implements Closeable {
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int RESPONSE_BUFFER_BYTES = 4 * 1024;
+    private static final int DEFAULT_LIMIT = 10;
+    private static final Set<String> READ_ONLY_RESOURCES = Set.of("search", "next", "stats");
+    
+    static {
+        // Chunked responses go out in several small writes; without this the last one waits on a delayed ACK.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+    
+    private final TaskManager taskManager;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    
+    public TaskApiServer(TaskManager taskManager, InetSocketAddress address) throws IOException {
+        this.taskManager = taskManager;
+        this.server = HttpServer.create(address, 0);
+        this.executor = newRequestExecutor();
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+    
+    // Virtual threads arrived in Java 21; looked up reflectively so the code still builds on 17.
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+            return Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "task-api");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+    
+    public void start() {
+        server.start();
+    }
+    
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            route(exchange);
+        } catch (InvalidTaskException | IllegalArgumentException | DateTimeParseException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (TaskException e) {
+            // TaskManager reports unknown IDs this way.
+            sendError(exchange, 404, e.getMessage());
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, e.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private void route(HttpExchange exchange) throws IOException, TaskException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        HashMap<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        String resource = path.length > 1 ? path[1] : "";
+        
+        if (resource.equals("tasks") && path.length == 2) {
+            if (method.equals("GET")) {
+                try (Stream<Task> tasks = taskManager.query(buildQuery(params))) {
+                    sendTasks(exchange, 200, tasks.iterator());
+                }
+            } else if (method.equals("POST")) {
+                Task task = readBody(exchange).toTask(Task.reserveIds(1), LocalDateTime.now());
+                taskManager.addTask(task);
+                exchange.getResponseHeaders().set("Location", "/tasks/" + task.getId());
+                sendTask(exchange, 201, task);
+            } else {
+                sendMethodNotAllowed(exchange);
+            }
+        } else if (resource.equals("tasks") && path.length == 3) {
+            int id = parseId(path[2]);
+            switch (method) {
+                case "GET":
+                    sendTask(exchange, 200, requireTask(id));
+                    break;
+                case "PATCH":
+                case "PUT":
+                    sendTask(exchange, 200, updateTask(id, readBody(exchange)));
+                    break;
+                case "DELETE":
+                    taskManager.removeTask(id);
+                    exchange.sendResponseHeaders(204, -1);
+                    break;
+                default:
+                    sendMethodNotAllowed(exchange);
+            }
+        } else if (resource.equals("tasks") && path.length == 4 && path[3].equals("complete")) {
+            if (!method.equals("POST")) {
+                sendMethodNotAllowed(exchange);
+                return;
+            }
+            int id = parseId(path[2]);
+            taskManager.completeTask(id);
+            sendTask(exchange, 200, requireTask(id));
+        } else if (path.length != 2 || !READ_ONLY_RESOURCES.contains(resource)) {
+            sendError(exchange, 404, "No such resource: " + exchange.getRequestURI().getPath());
+        } else if (!method.equals("GET")) {
+            sendMethodNotAllowed(exchange);
+        } else if (resource.equals("search")) {
+            String text = params.getOrDefault("q", "");
+            sendTasks(exchange, 200, taskManager.searchTasks(text, parseLimit(params, DEFAULT_LIMIT)).iterator());
+        } else if (resource.equals("next")) {
+            sendTasks(exchange, 200, taskManager.getNextTasks(parseLimit(params, DEFAULT_LIMIT)).iterator());
+        } else {
+            sendStatistics(exchange, taskManager.takeStatisticsSnapshot());
+        }
+    }
+    
+    private Task requireTask(int id) throws TaskException {
+        Task task = taskManager.findTaskById(id);
+        if (task == null) {
+            throw new TaskException("Task with ID " + id + " not found!");
+        }
+        return task;
+    }
+    
+    // The body is fully parsed and checked before anything is applied, so a bad request changes nothing.
+    private Task updateTask(int id, TaskJsonCodec.Decoder body) throws TaskException {
+        Task task = requireTask(id);
+        String title = body.getTitle();
+        if (title != null) {
+            Task.validateTitle(title);
+        }
+        Task.toMicros(body.getDueDate());
+        
+        if (title != null) {
+            task.setTitle(title);
+        }
+        if (body.getPriority() != null) {
+            task.setPriority(body.getPriority());
+        }
+        if (body.hasDueDate()) {
+            task.setDueDate(body.getDueDate());
+        }
+        if (body.getStatus() != null) {
+            taskManager.updateTaskStatus(id, body.getStatus());
+        }
+        return task;
+    }
+    
+    private static TaskQuery buildQuery(HashMap<String, String> params) {
+        TaskQuery query = new TaskQuery();
+        if (params.containsKey("status")) {
+            query.withStatus(parseEnums(TaskStatus.class, params.get("status"), TaskStatus[]::new));
+        }
+        if (params.containsKey("category")) {
+            query.inCategory(parseEnums(TaskCategory.class, params.get("category"), TaskCategory[]::new));
+        }
+        if (params.containsKey("priority")) {
+            query.withPriority(parseEnums(Priority.class, params.get("priority"), Priority[]::new));
+        }
+        if (Boolean.parseBoolean(params.get("open"))) {
+            query.open();
+        }
+        if (Boolean.parseBoolean(params.get("urgent"))) {
+            query.urgent();
+        }
+        if (params.containsKey("assignee")) {
+            query.assignedTo(params.get("assignee"));
+        }
+        if (params.containsKey("q")) {
+            query.matching(params.get("q"));
+        }
+        if (params.containsKey("dueWithinDays")) {
+            query.dueWithinDays(Integer.parseInt(params.get("dueWithinDays")));
+        }
+        String sort = params.get("sort");
+        if ("due".equals(sort)) {
+            query.sortBy(TaskQuery.BY_DUE_DATE);
+        } else if ("priority".equals(sort)) {
+            query.sortBy(TaskQuery.BY_PRIORITY);
+        } else if (sort != null) {
+            throw new IllegalArgumentException("Unknown sort order: " + sort);
+        }
+        if (params.containsKey("limit")) {
+            query.limit(parseLimit(params, Integer.MAX_VALUE));
+        }
+        return query;
+    }
+    
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+    }
+    
+    private static <E extends Enum<E>> E[] parseEnums(Class<E> type, String values, Function<Integer, E[]> newArray) {
+        String[] names = values.split(",");
+        E[] parsed = newArray.apply(names.length);
+        for (int i = 0; i < names.length; i++) {
+            parsed[i] = parseEnum(type, names[i]);
+        }
+        return parsed;
+    }
+    
+    private static int parseId(String value) throws TaskException {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new TaskException("No such task: " + value);
+        }
+    }
+    
+    private static int parseLimit(HashMap<String, String> params, int defaultLimit) {
+        String value = params.get("limit");
+        if (value == null) {
+            return defaultLimit;
+        }
+        int limit = Integer.parseInt(value);
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative: " + limit);
+        }
+        return limit;
+    }
+    
+    private static HashMap<String, String> parseQuery(String rawQuery) {
+        HashMap<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+    
+    private static TaskJsonCodec.Decoder readBody(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            throw new IllegalArgumentException("Request body larger than " + MAX_BODY_BYTES + " bytes");
+        }
+        return new TaskJsonCodec.Decoder().read(new String(body, StandardCharsets.UTF_8));
+    }
+    
+    private static TaskJsonCodec.Encoder openBody(HttpExchange exchange, int status) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0);
+        return new TaskJsonCodec.Encoder(exchange.getResponseBody(), RESPONSE_BUFFER_BYTES);
+    }
+    
+    private static void sendTask(HttpExchange exchange, int status, Task task) throws IOException {
+        try (TaskJsonCodec.Encoder out = openBody(exchange, status)) {
+            out.task(task);
+        }
+    }
+    
+    private static void sendTasks(HttpExchange exchange, int status, Iterator<Task> tasks) throws IOException {
+        try (TaskJsonCodec.Encoder out = openBody(exchange, status)) {
+            out.tasks(tasks);
+        }
+    }
+    
+    private static void sendMethodNotAllowed(HttpExchange exchange) throws IOException {
+        sendError(exchange, 405, "Method not allowed: " + exchange.getRequestMethod());
+    }
+    
+    // Headers may already be out if a listing failed part way; then the connection is just closed.
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            return;
+        }
+        try (TaskJsonCodec.Encoder out = openBody(exchange, status)) {
+            out.beginObject().name("error").value(message).endObject();
+        }
+    }
+    
+    private static void sendStatistics(HttpExchange exchange, StatisticsSnapshot snapshot) throws IOException {
+        try (TaskJsonCodec.Encoder out = openBody(exchange, 200)) {
+            out.beginObject()
+               .name("total").value(snapshot.getTotal())
+               .name("completionRate").value(snapshot.getCompletionRate())
+               .name("overdue").value(snapshot.getOverdueCount())
+               .name("urgent").value(snapshot.getUrgentCount())
+               .name("averageCompletionHours").value(snapshot.getAverageCompletionTime());
+            out.name("byStatus").beginObject();
+            for (TaskStatus status : TaskStatus.values()) {
+                out.name(status.name()).value(snapshot.getCount(status));
+            }
+            out.endObject().name("byCategory").beginObject();
+            for (TaskCategory category : TaskCategory.values()) {
+                out.name(category.name()).value(snapshot.getCount(category));
+            }
+            out.endObject().name("byPriority").beginObject();
+            for (Priority priority : Priority.values()) {
+                out.name(priority.name()).value(snapshot.getCount(priority));
+            }
+            out.endObject().endObject();
+        }
+    }
+}
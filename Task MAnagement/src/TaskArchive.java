@@ -0,0 +1,378 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+// Column-oriented, memory-mapped storage for finished tasks. Every field lives in its own column file:
+// int IDs, byte ordinals, epoch-second dates and int references into strings.heap, where each distinct
+// title or description is stored once (found again through the mapped strings.dict table). Statistics scan the columns directly; a task object is only
+// rebuilt when one is asked for by ID.
+public class TaskArchive implements Closeable {
+    private static final int META_MAGIC = 0x54415243;
+    private static final int META_VERSION = 1;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int NO_STRING = -1;
+    private static final byte STRING_ENTRY = 1;
+    private static final byte DETAIL_ENTRY = 2;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final TaskCategory[] CATEGORIES = TaskCategory.values();
+    private static final Priority[] PRIORITIES = Priority.values();
+    
+    private final FileChannel metaChannel;
+    private final MappedByteBuffer meta;
+    private final FileChannel heap;
+    private final MappedColumn ids;
+    private final MappedColumn types;
+    private final MappedColumn categories;
+    private final MappedColumn priorities;
+    private final MappedColumn statuses;
+    private final MappedColumn createdDates;
+    private final MappedColumn dueDates;
+    private final MappedColumn completedDates;
+    private final MappedColumn titles;
+    private final MappedColumn descriptions;
+    private final MappedColumn details;
+    private final TaskIdIndex rowsById;
+    private final int[] statusCounts;
+    private final int[] categoryCounts;
+    private final int[] priorityCounts;
+    private volatile long[] heapOffsets;
+    private int heapEntries;
+    private long heapSize;
+    private final StringDictionary dictionary;
+    private volatile int rowCount;
+    
+    private TaskArchive(Path directory) throws IOException {
+        metaChannel = FileChannel.open(directory.resolve("archive.meta"), StandardOpenOption.CREATE,
+                                       StandardOpenOption.READ, StandardOpenOption.WRITE);
+        meta = metaChannel.map(FileChannel.MapMode.READ_WRITE, 0, 12);
+        if (meta.getInt(0) == 0) {
+            meta.putInt(0, META_MAGIC);
+            meta.putInt(4, META_VERSION);
+        } else if (meta.getInt(0) != META_MAGIC || meta.getInt(4) != META_VERSION) {
+            metaChannel.close();
+            throw new IOException("Not a task archive: " + directory);
+        }
+        int rows = meta.getInt(8);
+        
+        heap = FileChannel.open(directory.resolve("strings.heap"), StandardOpenOption.CREATE,
+                                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        dictionary = new StringDictionary(directory.resolve("strings.dict"));
+        ids = new MappedColumn(directory.resolve("id.col"), 4, rows);
+        types = new MappedColumn(directory.resolve("type.col"), 1, rows);
+        categories = new MappedColumn(directory.resolve("category.col"), 1, rows);
+        priorities = new MappedColumn(directory.resolve("priority.col"), 1, rows);
+        statuses = new MappedColumn(directory.resolve("status.col"), 1, rows);
+        createdDates = new MappedColumn(directory.resolve("created.col"), 8, rows);
+        dueDates = new MappedColumn(directory.resolve("due.col"), 8, rows);
+        completedDates = new MappedColumn(directory.resolve("completed.col"), 8, rows);
+        titles = new MappedColumn(directory.resolve("title.col"), 4, rows);
+        descriptions = new MappedColumn(directory.resolve("description.col"), 4, rows);
+        details = new MappedColumn(directory.resolve("detail.col"), 4, rows);
+        
+        rowsById = new TaskIdIndex(rows);
+        statusCounts = new int[STATUSES.length];
+        categoryCounts = new int[CATEGORIES.length];
+        priorityCounts = new int[PRIORITIES.length];
+        for (int row = 0; row < rows; row++) {
+            rowsById.put(ids.getInt(row), row);
+            statusCounts[statuses.getByte(row)]++;
+            categoryCounts[categories.getByte(row)]++;
+            priorityCounts[priorities.getByte(row)]++;
+        }
+        rowCount = rows;
+    }
+    
+    public static TaskArchive open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        TaskArchive archive = new TaskArchive(directory);
+        try {
+            archive.loadHeapOffsets();
+            archive.catchUpDictionary();
+        } catch (IOException e) {
+            archive.close();
+            throw e;
+        }
+        return archive;
+    }
+    
+    // Heap entries are [kind][length][bytes] and are referenced by their position in the file.
+    // An entry torn by a crash is cut off; no row can reference it, since rows are committed last.
+    private void loadHeapOffsets() throws IOException {
+        long[] offsets = new long[1024];
+        int count = 0;
+        long position = 0;
+        heap.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(heap), 64 * 1024));
+        while (true) {
+            int length;
+            try {
+                in.readByte();
+                length = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            if (length < 0 || position + 5 + length > heap.size() || in.skipBytes(length) != length) {
+                break;
+            }
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = position;
+            position += 5 + length;
+        }
+        heap.truncate(position);
+        heapOffsets = offsets;
+        heapEntries = count;
+        heapSize = position;
+    }
+    
+    // Moves a finished task into the archive. Only the store's copy is dropped; the caller removes it.
+    public synchronized void append(Task task) throws IOException {
+        TaskStatus status = task.getStatus();
+        if (!status.isComplete()) {
+            throw new IllegalArgumentException("Only finished tasks can be archived: " + task.getId());
+        }
+        if (rowsById.containsKey(task.getId())) {
+            throw new IllegalArgumentException("Task " + task.getId() + " is already archived");
+        }
+        
+        ByteArrayOutputStream detailBytes = new ByteArrayOutputStream(64);
+        TaskRecordCodec.writeDetails(new DataOutputStream(detailBytes), task);
+        
+        int row = rowCount;
+        ensureCapacity(row + 1);
+        ids.putInt(row, task.getId());
+        types.putByte(row, TaskRecordCodec.typeCode(task));
+        categories.putByte(row, (byte) task.getCategory().ordinal());
+        priorities.putByte(row, (byte) task.getPriority().ordinal());
+        statuses.putByte(row, (byte) status.ordinal());
+        createdDates.putLong(row, toEpochSecond(task.getCreatedDate()));
+        dueDates.putLong(row, toEpochSecond(task.getDueDate()));
+        completedDates.putLong(row, toEpochSecond(task.getCompletedDate()));
+        titles.putInt(row, internString(task.getTitle()));
+        descriptions.putInt(row, internString(task.getDescription()));
+        details.putInt(row, appendEntry(DETAIL_ENTRY, detailBytes.toByteArray()));
+        
+        // The row count is the commit point: a row only becomes visible once all its columns are written.
+        meta.putInt(8, row + 1);
+        rowsById.put(task.getId(), row);
+        statusCounts[status.ordinal()]++;
+        categoryCounts[task.getCategory().ordinal()]++;
+        priorityCounts[task.getPriority().ordinal()]++;
+        rowCount = row + 1;
+    }
+    
+    private void ensureCapacity(int rows) throws IOException {
+        ids.ensureCapacity(rows);
+        types.ensureCapacity(rows);
+        categories.ensureCapacity(rows);
+        priorities.ensureCapacity(rows);
+        statuses.ensureCapacity(rows);
+        createdDates.ensureCapacity(rows);
+        dueDates.ensureCapacity(rows);
+        completedDates.ensureCapacity(rows);
+        titles.ensureCapacity(rows);
+        descriptions.ensureCapacity(rows);
+        details.ensureCapacity(rows);
+    }
+    
+    private int internString(String value) throws IOException {
+        if (value == null) {
+            return NO_STRING;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int existing = dictionary.find(bytes, heapEntries, this::readEntry);
+        if (existing >= 0) {
+            return existing;
+        }
+        int entry = appendEntry(STRING_ENTRY, bytes);
+        dictionary.add(StringDictionary.hash(bytes), entry);
+        return entry;
+    }
+    
+    // The dictionary file lags behind the heap after a crash, and is rebuilt if it covers a heap tail
+    // that was cut off; an archive written before the dictionary existed is indexed here once.
+    private void catchUpDictionary() throws IOException {
+        if (dictionary.coveredEntries() > heapEntries) {
+            dictionary.clear();
+        }
+        for (int entry = dictionary.coveredEntries(); entry < heapEntries; entry++) {
+            if (readEntryKind(entry) == STRING_ENTRY) {
+                dictionary.add(StringDictionary.hash(readEntry(entry)), entry);
+            }
+        }
+        dictionary.setCoveredEntries(heapEntries);
+    }
+    
+    private int appendEntry(byte kind, byte[] bytes) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(5 + bytes.length);
+        entry.put(kind).putInt(bytes.length).put(bytes).flip();
+        while (entry.hasRemaining()) {
+            heap.write(entry, heapSize + entry.position());
+        }
+        
+        long[] offsets = heapOffsets;
+        if (heapEntries == offsets.length) {
+            offsets = Arrays.copyOf(offsets, heapEntries * 2);
+        }
+        offsets[heapEntries] = heapSize;
+        heapOffsets = offsets;
+        heapSize += entry.capacity();
+        dictionary.setCoveredEntries(heapEntries + 1);
+        return heapEntries++;
+    }
+    
+    private byte readEntryKind(int entry) throws IOException {
+        ByteBuffer kind = ByteBuffer.allocate(1);
+        heap.read(kind, heapOffsets[entry]);
+        return kind.get(0);
+    }
+    
+    private byte[] readEntry(int entry) throws IOException {
+        long offset = heapOffsets[entry];
+        ByteBuffer header = ByteBuffer.allocate(4);
+        readFully(header, offset + 1);
+        ByteBuffer bytes = ByteBuffer.allocate(header.getInt(0));
+        readFully(bytes, offset + 5);
+        return bytes.array();
+    }
+    
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (heap.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Archive heap is truncated");
+            }
+        }
+    }
+    
+    private String readString(int entry) throws IOException {
+        if (entry == NO_STRING) {
+            return null;
+        }
+        return new String(readEntry(entry), StandardCharsets.UTF_8);
+    }
+    
+    private static long toEpochSecond(LocalDateTime date) {
+        return date == null ? NO_DATE : date.toEpochSecond(ZoneOffset.UTC);
+    }
+    
+    private static LocalDateTime fromEpochSecond(long epochSecond) {
+        return epochSecond == NO_DATE ? null : LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+    
+    public int size() {
+        return rowCount;
+    }
+    
+    public synchronized boolean contains(int id) {
+        return rowsById.containsKey(id);
+    }
+    
+    // True when the archived row for this task's ID was written from the task in its current finished
+    // state (dates compared to the second, as archived), as when a crash hit between archiving and removal.
+    public synchronized boolean holdsCopyOf(Task task) {
+        int row = rowsById.get(task.getId());
+        return row >= 0 && statuses.getByte(row) == task.getStatus().ordinal()
+               && completedDates.getLong(row) == toEpochSecond(task.getCompletedDate());
+    }
+    
+    public synchronized int count(TaskStatus status) {
+        return statusCounts[status.ordinal()];
+    }
+    
+    public synchronized int count(TaskCategory category) {
+        return categoryCounts[category.ordinal()];
+    }
+    
+    public synchronized int count(Priority priority) {
+        return priorityCounts[priority.ordinal()];
+    }
+    
+    // Feeds every archived row into the builder straight from the mapped columns.
+    public void scan(StatisticsSnapshot.Builder builder) {
+        int rows = rowCount;
+        for (int row = 0; row < rows; row++) {
+            long completed = completedDates.getLong(row);
+            double hours = completed == NO_DATE ? -1 : (completed - createdDates.getLong(row)) / 3600;
+            builder.acceptFinished(STATUSES[statuses.getByte(row)], CATEGORIES[categories.getByte(row)],
+                                   PRIORITIES[priorities.getByte(row)], hours);
+        }
+    }
+    
+    public StatisticsSnapshot takeSnapshot() {
+        StatisticsSnapshot.Builder builder = new StatisticsSnapshot.Builder(LocalDateTime.now());
+        scan(builder);
+        return builder.build();
+    }
+    
+    // Rebuilds a detached copy of an archived task, with dates truncated to whole seconds.
+    public Task findTaskById(int id) throws IOException {
+        int row;
+        synchronized (this) {
+            row = rowsById.get(id);
+        }
+        if (row < 0) {
+            return null;
+        }
+        DataInputStream detailIn = new DataInputStream(new ByteArrayInputStream(readEntry(details.getInt(row))));
+        return TaskRecordCodec.readDetails(detailIn, types.getByte(row), id,
+                                           readString(titles.getInt(row)), readString(descriptions.getInt(row)),
+                                           PRIORITIES[priorities.getByte(row)], STATUSES[statuses.getByte(row)],
+                                           fromEpochSecond(createdDates.getLong(row)),
+                                           fromEpochSecond(dueDates.getLong(row)),
+                                           fromEpochSecond(completedDates.getLong(row)));
+    }
+    
+    // Mapped pages already survive a crash of this process; force() makes them survive power loss too.
+    public synchronized void force() throws IOException {
+        heap.force(false);
+        dictionary.force();
+        ids.force();
+        types.force();
+        categories.force();
+        priorities.force();
+        statuses.force();
+        createdDates.force();
+        dueDates.force();
+        completedDates.force();
+        titles.force();
+        descriptions.force();
+        details.force();
+        meta.force();
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        heap.close();
+        dictionary.close();
+        ids.close();
+        types.close();
+        categories.close();
+        priorities.close();
+        statuses.close();
+        createdDates.close();
+        dueDates.close();
+        completedDates.close();
+        titles.close();
+        descriptions.close();
+        details.close();
+        metaChannel.close();
+    }
+}
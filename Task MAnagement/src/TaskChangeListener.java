@@ -0,0 +1,38 @@
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public interface TaskChangeListener {
+    default void onTaskAdded(Task task) {
+    }
+    
+    // A batch added in one go by TaskManager.addAll; listeners that can take a batch more cheaply override it.
+    default void onTasksAdded(Collection<? extends Task> tasks) {
+        for (Task task : tasks) {
+            onTaskAdded(task);
+        }
+    }
+    
+    default void onTaskRemoved(Task task) {
+    }
+    
+    default void onStatusChanged(Task task, TaskStatus oldStatus) {
+    }
+    
+    default void onPriorityChanged(Task task, Priority oldPriority) {
+    }
+    
+    default void onDueDateChanged(Task task, LocalDateTime oldDueDate) {
+    }
+    
+    default void onTitleChanged(Task task, String oldTitle) {
+    }
+    
+    default void onItemAdded(ShoppingTask task, String item) {
+    }
+    
+    default void onItemRemoved(ShoppingTask task, String item) {
+    }
+    
+    default void onActualCostChanged(ShoppingTask task, double oldCost) {
+    }
+}
@@ -0,0 +1,98 @@
+import java.time.LocalDateTime;
+
+// One change published on a TaskEventBus. Events are slots in the bus's ring and are reused once every
+// subscriber has moved past them, so handlers must copy anything they want to keep. Besides the old value,
+// an event records the task's indexed fields as they were when it was published: getTask() is the live
+// task, which may have changed again by the time a handler runs.
+public final class TaskEvent {
+    public enum Type {
+        ADDED,
+        REMOVED,
+        STATUS_CHANGED,
+        PRIORITY_CHANGED,
+        DUE_DATE_CHANGED,
+        TITLE_CHANGED,
+        ITEM_ADDED,
+        ITEM_REMOVED,
+        ACTUAL_COST_CHANGED
+    }
+    
+    private Type type;
+    private Task task;
+    private Object previous;
+    private String title;
+    private TaskStatus status;
+    private Priority priority;
+    private long dueMicros;
+    private long completedMicros;
+    
+    // Called while the change is published under the task's lock, so the fields match the change.
+    void set(Type type, Task task, Object previous) {
+        this.type = type;
+        this.task = task;
+        this.previous = previous;
+        this.title = task.getTitle();
+        this.status = task.getStatus();
+        this.priority = task.getPriority();
+        this.dueMicros = task.getDueMicros();
+        this.completedMicros = task.getCompletedMicros();
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public Task getTask() {
+        return task;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public TaskStatus getStatus() {
+        return status;
+    }
+    
+    public Priority getPriority() {
+        return priority;
+    }
+    
+    public LocalDateTime getDueDate() {
+        return Task.fromMicros(dueMicros);
+    }
+    
+    public LocalDateTime getCompletedDate() {
+        return Task.fromMicros(completedMicros);
+    }
+    
+    public TaskStatus getOldStatus() {
+        return type == Type.STATUS_CHANGED ? (TaskStatus) previous : null;
+    }
+    
+    public Priority getOldPriority() {
+        return type == Type.PRIORITY_CHANGED ? (Priority) previous : null;
+    }
+    
+    public LocalDateTime getOldDueDate() {
+        return type == Type.DUE_DATE_CHANGED ? (LocalDateTime) previous : null;
+    }
+    
+    public String getOldTitle() {
+        return type == Type.TITLE_CHANGED ? (String) previous : null;
+    }
+    
+    // The shopping item added or removed.
+    public String getItem() {
+        return type == Type.ITEM_ADDED || type == Type.ITEM_REMOVED ? (String) previous : null;
+    }
+    
+    public Double getOldActualCost() {
+        return type == Type.ACTUAL_COST_CHANGED ? (Double) previous : null;
+    }
+    
+    @Override
+    public String toString() {
+        return type + " #" + task.getId() + (previous != null ? " (was " + previous + ")" : "");
+    }
+}
@@ -0,0 +1,289 @@
+import java.io.Closeable;
+import java.time.LocalDateTime;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Publishes every task change onto a bounded ring of preallocated events, Disruptor style. Writers
+// claim a sequence with one atomic increment, fill the slot and mark it published with the lap number;
+// there are no locks on the way. Each subscriber runs on its own thread and consumes every published
+// run as a batch, so a slow subscriber delays only itself, until the ring is full: then writers wait
+// for the slowest subscriber instead of dropping events. Changes are published from inside the task's
+// lock, so handlers must never lock or change tasks: a writer waiting for ring space holds its task's
+// lock, and a handler's own change could wait on the handler itself. Task and TaskManager mutators
+// check rejectHandlerThread() before taking any lock or changing anything.
+public class TaskEventBus implements TaskChangeListener, Closeable {
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final int SPINS_BEFORE_PARK = 64;
+    private static final long PARK_NANOS = 100_000;
+    
+    private final TaskEvent[] ring;
+    private final int mask;
+    private final int lapShift;
+    private final AtomicIntegerArray publishedLaps;
+    private final AtomicLong claimed;
+    private final CopyOnWriteArrayList<Subscriber> subscribers;
+    private final OutputSink errors;
+    private volatile boolean closed;
+    
+    public TaskEventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    public TaskEventBus(int capacity) {
+        this(capacity, OutputSink.CONSOLE);
+    }
+    
+    // Handler failures are reported to errors; the bus keeps delivering to the failed handler.
+    public TaskEventBus(OutputSink errors) {
+        this(DEFAULT_CAPACITY, errors);
+    }
+    
+    public TaskEventBus(int capacity, OutputSink errors) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.ring = new TaskEvent[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new TaskEvent();
+        }
+        this.mask = capacity - 1;
+        this.lapShift = Integer.numberOfTrailingZeros(capacity);
+        this.publishedLaps = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            publishedLaps.set(i, -1);
+        }
+        this.claimed = new AtomicLong(-1);
+        this.subscribers = new CopyOnWriteArrayList<>();
+        this.errors = errors;
+    }
+    
+    private final class Subscriber implements Runnable {
+        final TaskEventHandler handler;
+        final AtomicLong sequence;
+        final Thread thread;
+        volatile boolean sleeping;
+        volatile boolean running;
+        
+        Subscriber(TaskEventHandler handler, long start, String name) {
+            this.handler = handler;
+            this.sequence = new AtomicLong(start);
+            this.thread = new SubscriberThread(this, name);
+            this.thread.setDaemon(true);
+            this.running = true;
+        }
+        
+        @Override
+        public void run() {
+            int idle = 0;
+            while (true) {
+                long next = sequence.get() + 1;
+                long available = highestPublished(next, claimed.get());
+                if (available < next) {
+                    if (!running) {
+                        return;
+                    }
+                    if (++idle < SPINS_BEFORE_PARK) {
+                        Thread.onSpinWait();
+                    } else {
+                        sleeping = true;
+                        if (highestPublished(next, claimed.get()) < next && running) {
+                            LockSupport.parkNanos(this, PARK_NANOS);
+                        }
+                        sleeping = false;
+                    }
+                    continue;
+                }
+                idle = 0;
+                for (long current = next; current <= available; current++) {
+                    try {
+                        handler.onEvent(ring[(int) current & mask], current, current == available);
+                    } catch (RuntimeException e) {
+                        errors.println("Task event handler failed: " + e);
+                    }
+                }
+                sequence.lazySet(available);
+            }
+        }
+    }
+    
+    private static final class SubscriberThread extends Thread {
+        SubscriberThread(Runnable subscriber, String name) {
+            super(subscriber, name);
+        }
+    }
+    
+    static void rejectHandlerThread() {
+        if (Thread.currentThread() instanceof SubscriberThread) {
+            throw new IllegalStateException("Task event handlers must not change tasks");
+        }
+    }
+    
+    // Handlers see every change published after they subscribe, on their own thread.
+    public void subscribe(TaskEventHandler handler) {
+        Subscriber subscriber = new Subscriber(handler, claimed.get(), "task-events-" + subscribers.size());
+        subscribers.add(subscriber);
+        subscriber.thread.start();
+    }
+    
+    // Lets an existing TaskChangeListener receive the changes asynchronously. The listener is handed the
+    // live task, which may have changed again since the event, so this only suits listeners that use the
+    // task's identity and the old value, such as notifications; anything that reads the task's fields
+    // (DueDateIndex, LiveStatistics, TextSearchIndex) must be a TaskEventHandler reading the event.
+    public void subscribe(TaskChangeListener listener) {
+        subscribe((event, sequence, endOfBatch) -> dispatch(event, listener));
+    }
+    
+    // Stops the handler once it has caught up with everything published so far.
+    public void unsubscribe(TaskEventHandler handler) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.handler == handler) {
+                stop(subscriber);
+                subscribers.remove(subscriber);
+            }
+        }
+    }
+    
+    private void stop(Subscriber subscriber) {
+        subscriber.running = false;
+        LockSupport.unpark(subscriber.thread);
+        try {
+            subscriber.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static void dispatch(TaskEvent event, TaskChangeListener listener) {
+        Task task = event.getTask();
+        switch (event.getType()) {
+            case ADDED:
+                listener.onTaskAdded(task);
+                break;
+            case REMOVED:
+                listener.onTaskRemoved(task);
+                break;
+            case STATUS_CHANGED:
+                listener.onStatusChanged(task, event.getOldStatus());
+                break;
+            case PRIORITY_CHANGED:
+                listener.onPriorityChanged(task, event.getOldPriority());
+                break;
+            case DUE_DATE_CHANGED:
+                listener.onDueDateChanged(task, event.getOldDueDate());
+                break;
+            case TITLE_CHANGED:
+                listener.onTitleChanged(task, event.getOldTitle());
+                break;
+            case ITEM_ADDED:
+                listener.onItemAdded((ShoppingTask) task, event.getItem());
+                break;
+            case ITEM_REMOVED:
+                listener.onItemRemoved((ShoppingTask) task, event.getItem());
+                break;
+            case ACTUAL_COST_CHANGED:
+                listener.onActualCostChanged((ShoppingTask) task, event.getOldActualCost());
+                break;
+        }
+    }
+    
+    private void publish(TaskEvent.Type type, Task task, Object previous) {
+        if (closed || subscribers.isEmpty()) {
+            return;
+        }
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - ring.length;
+        while (wrapPoint > slowestSubscriber(wrapPoint)) {
+            LockSupport.parkNanos(PARK_NANOS / 100);
+        }
+        int index = (int) sequence & mask;
+        ring[index].set(type, task, previous);
+        publishedLaps.lazySet(index, (int) (sequence >>> lapShift));
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.sleeping) {
+                LockSupport.unpark(subscriber.thread);
+            }
+        }
+    }
+    
+    private long slowestSubscriber(long atLeast) {
+        long slowest = Long.MAX_VALUE;
+        for (Subscriber subscriber : subscribers) {
+            slowest = Math.min(slowest, subscriber.sequence.get());
+            if (slowest < atLeast) {
+                break;
+            }
+        }
+        return slowest;
+    }
+    
+    // Writers may finish out of order, so a reader stops at the first claimed slot not yet published.
+    private long highestPublished(long from, long upTo) {
+        for (long sequence = from; sequence <= upTo; sequence++) {
+            if (publishedLaps.get((int) sequence & mask) != (int) (sequence >>> lapShift)) {
+                return sequence - 1;
+            }
+        }
+        return upTo;
+    }
+    
+    public long getPublishedCount() {
+        return claimed.get() + 1;
+    }
+    
+    // Delivers what has been published so far, then stops every subscriber.
+    @Override
+    public void close() {
+        closed = true;
+        for (Subscriber subscriber : subscribers) {
+            stop(subscriber);
+        }
+        subscribers.clear();
+    }
+    
+    @Override
+    public void onTaskAdded(Task task) {
+        publish(TaskEvent.Type.ADDED, task, null);
+    }
+    
+    @Override
+    public void onTaskRemoved(Task task) {
+        publish(TaskEvent.Type.REMOVED, task, null);
+    }
+    
+    @Override
+    public void onStatusChanged(Task task, TaskStatus oldStatus) {
+        publish(TaskEvent.Type.STATUS_CHANGED, task, oldStatus);
+    }
+    
+    @Override
+    public void onPriorityChanged(Task task, Priority oldPriority) {
+        publish(TaskEvent.Type.PRIORITY_CHANGED, task, oldPriority);
+    }
+    
+    @Override
+    public void onDueDateChanged(Task task, LocalDateTime oldDueDate) {
+        publish(TaskEvent.Type.DUE_DATE_CHANGED, task, oldDueDate);
+    }
+    
+    @Override
+    public void onTitleChanged(Task task, String oldTitle) {
+        publish(TaskEvent.Type.TITLE_CHANGED, task, oldTitle);
+    }
+    
+    @Override
+    public void onItemAdded(ShoppingTask task, String item) {
+        publish(TaskEvent.Type.ITEM_ADDED, task, item);
+    }
+    
+    @Override
+    public void onItemRemoved(ShoppingTask task, String item) {
+        publish(TaskEvent.Type.ITEM_REMOVED, task, item);
+    }
+    
+    @Override
+    public void onActualCostChanged(ShoppingTask task, double oldCost) {
+        publish(TaskEvent.Type.ACTUAL_COST_CHANGED, task, oldCost);
+    }
+}
@@ -0,0 +1,4 @@
+public interface TaskEventHandler {
+    // endOfBatch is true for the last event currently available, a good point to flush batched work.
+    void onEvent(TaskEvent event, long sequence, boolean endOfBatch);
+}
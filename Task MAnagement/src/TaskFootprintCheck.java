@@ -0,0 +1,40 @@
+import java.time.LocalDateTime;
+
+// Estimates the retained heap of one WorkTask as the heap delta, after GC, of holding many of them.
+// Titles and other strings are shared, so the figure is the task objects themselves; half the tasks are
+// completed so both date fields are in use. Run with "java TaskFootprintCheck [tasks]", once as is and
+// once with -XX:-UseCompressedOops. Only public API is used, so it also runs against older trees.
+public class TaskFootprintCheck {
+    private static final int DEFAULT_TASKS = 500_000;
+    private static final int GC_ROUNDS = 5;
+    
+    public static void main(String[] args) throws InvalidTaskException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TASKS;
+        LocalDateTime due = LocalDateTime.now().plusDays(7);
+        Task[] tasks = new Task[count];
+        
+        long before = usedHeap();
+        for (int i = 0; i < count; i++) {
+            tasks[i] = new WorkTask("Footprint task", "Shared description", Priority.MEDIUM, due, "Project",
+                                    "Nobody", 1);
+            if (i % 2 == 0) {
+                tasks[i].markComplete();
+            }
+        }
+        long after = usedHeap();
+        
+        // The array holding the tasks is allocated before the first reading, so it is not counted.
+        System.out.printf("%d tasks, %.1f bytes per task%n", count, (after - before) / (double) count);
+        if (tasks[count - 1] == null) {
+            throw new IllegalStateException("Tasks were not kept alive");
+        }
+    }
+    
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,162 @@
+import java.util.Arrays;
+
+// Open-addressing map from task ID to a slot number, keyed on primitive ints so IDs are never boxed.
+public class TaskIdIndex {
+    private static final int EMPTY_KEY = 0;
+    private static final float LOAD_FACTOR = 0.6f;
+    
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int resizeThreshold;
+    
+    public TaskIdIndex() {
+        this(16);
+    }
+    
+    public TaskIdIndex(int expectedSize) {
+        int capacity = 16;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+    
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+    
+    // Grows the table once so that expectedSize keys fit without further rehashing.
+    public void ensureCapacity(int expectedSize) {
+        int capacity = keys.length;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        if (capacity > keys.length) {
+            rehash(capacity);
+        }
+    }
+    
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+    
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY_KEY) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+    
+    public int get(int key) {
+        return getOrDefault(key, -1);
+    }
+    
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == EMPTY_KEY) {
+            return defaultValue;
+        }
+        int index = indexOf(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+    
+    public boolean containsKey(int key) {
+        return key != EMPTY_KEY && indexOf(key) >= 0;
+    }
+    
+    public void put(int key, int value) {
+        if (key == EMPTY_KEY) {
+            throw new IllegalArgumentException("Task ID 0 cannot be indexed");
+        }
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY_KEY) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+    }
+    
+    public int remove(int key) {
+        if (key == EMPTY_KEY) {
+            return -1;
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            return -1;
+        }
+        int removed = values[index];
+        shiftBack(index);
+        size--;
+        return removed;
+    }
+    
+    // Backward-shift deletion keeps probe chains intact without tombstones.
+    private void shiftBack(int gap) {
+        int mask = keys.length - 1;
+        int index = gap;
+        while (true) {
+            index = (index + 1) & mask;
+            int key = keys[index];
+            if (key == EMPTY_KEY) {
+                break;
+            }
+            int home = hash(key) & mask;
+            boolean movable = gap <= index ? (home <= gap || home > index) : (home <= gap && home > index);
+            if (movable) {
+                keys[gap] = key;
+                values[gap] = values[index];
+                gap = index;
+            }
+        }
+        keys[gap] = EMPTY_KEY;
+        values[gap] = 0;
+    }
+    
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != EMPTY_KEY) {
+                int index = hash(key) & mask;
+                while (keys[index] != EMPTY_KEY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+    
+    public void clear() {
+        Arrays.fill(keys, EMPTY_KEY);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,321 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+// Bulk loader for CSV (with a header row) and JSON-lines files of work, personal and shopping tasks.
+// Lines are read in fixed-size chunks; each chunk reserves a block of IDs up front, is parsed and
+// validated in parallel when it is large enough, and goes into the manager as one batch. Memory stays
+// bounded by the chunk size, and bad lines are counted and reported instead of stopping the load.
+//
+// Fields: type (work, personal, shopping), title, description, priority, status, due, project,
+// assignedTo, hours, location, recurDays, budget, store, items. CSV items are separated by ';'.
+// JSON lines are read by TaskJsonCodec, which also takes the created, completed, actualCost and
+// seriesId fields it writes itself. Every task gets a new ID, so a seriesId is rewritten to the new ID
+// of the task whose exported "id" it names; one naming no task earlier in the same import is dropped.
+public class TaskImporter {
+    private static final int CHUNK_LINES = 64 * 1024;
+    private static final int MAX_REPORTED_ERRORS = 10;
+    // Decoders keep scratch state, so each parsing thread gets its own.
+    private static final ThreadLocal<TaskJsonCodec.Decoder> DECODERS = ThreadLocal.withInitial(TaskJsonCodec.Decoder::new);
+    
+    public enum Format {
+        CSV,
+        JSON_LINES;
+        
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".csv") ? CSV : JSON_LINES;
+        }
+    }
+    
+    private final TaskManager taskManager;
+    
+    public TaskImporter(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+    
+    public Result importFile(Path file) throws IOException {
+        return importFile(file, Format.of(file));
+    }
+    
+    public Result importFile(Path file, Format format) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importLines(reader, format);
+        }
+    }
+    
+    public Result importLines(BufferedReader reader, Format format) throws IOException {
+        Result result = new Result();
+        long start = System.nanoTime();
+        HashMap<String, Integer> columns = null;
+        String[] lines = new String[CHUNK_LINES];
+        int[] lineNumbers = new int[CHUNK_LINES];
+        int[] sourceIds = new int[CHUNK_LINES];
+        TaskIdIndex seriesIds = new TaskIdIndex();
+        int lineNumber = 0;
+        int count = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && columns == null) {
+                columns = readHeader(line);
+                continue;
+            }
+            lines[count] = line;
+            lineNumbers[count] = lineNumber;
+            if (++count == CHUNK_LINES) {
+                importChunk(lines, lineNumbers, sourceIds, count, format, columns, seriesIds, result);
+                count = 0;
+            }
+        }
+        if (count > 0) {
+            importChunk(lines, lineNumbers, sourceIds, count, format, columns, seriesIds, result);
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+    
+    private void importChunk(String[] lines, int[] lineNumbers, int[] sourceIds, int count, Format format,
+                             HashMap<String, Integer> columns, TaskIdIndex seriesIds, Result result) {
+        int firstId = Task.reserveIds(count);
+        LocalDateTime now = LocalDateTime.now();
+        Task[] parsed = new Task[count];
+        String[] errors = new String[count];
+        IntStream rows = IntStream.range(0, count);
+        if (taskManager.getParallelScanPolicy().shouldParallelize(count)) {
+            rows = rows.parallel();
+        }
+        rows.forEach(i -> {
+            try {
+                if (format == Format.CSV) {
+                    parsed[i] = buildTask(new CsvRow(columns, parseCsvLine(lines[i])), firstId + i, now);
+                } else {
+                    TaskJsonCodec.Decoder decoder = DECODERS.get().read(lines[i]);
+                    sourceIds[i] = decoder.getSourceId();
+                    parsed[i] = decoder.toTask(firstId + i, now);
+                }
+            } catch (InvalidTaskException | IllegalArgumentException | DateTimeParseException e) {
+                errors[i] = e.getMessage();
+            }
+        });
+        
+        ArrayList<Task> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (parsed[i] instanceof PersonalTask) {
+                batch.add(remapSeries((PersonalTask) parsed[i], sourceIds[i], seriesIds));
+            } else if (parsed[i] != null) {
+                batch.add(parsed[i]);
+            } else {
+                result.reject(lineNumbers[i], errors[i]);
+            }
+            lines[i] = null;
+            sourceIds[i] = 0;
+        }
+        taskManager.restoreTasks(batch);
+        result.imported += batch.size();
+    }
+    
+    // Runs in file order, so a series is always seen before the occurrences exported after it.
+    private static PersonalTask remapSeries(PersonalTask task, int sourceId, TaskIdIndex seriesIds) {
+        if (task.isRecurring() && sourceId > 0) {
+            seriesIds.put(sourceId, task.getId());
+        }
+        if (task.getSeriesId() == 0) {
+            return task;
+        }
+        return task.withSeriesId(Math.max(seriesIds.get(task.getSeriesId()), 0));
+    }
+    
+    private static Task buildTask(Row row, int id, LocalDateTime now) throws InvalidTaskException {
+        String type = row.get("type");
+        if (type == null) {
+            throw new InvalidTaskException("Missing task type");
+        }
+        String title = row.get("title");
+        Task.validateTitle(title);
+        String description = row.get("description") == null ? "" : row.get("description");
+        Priority priority = row.get("priority") == null ? Priority.MEDIUM : Priority.valueOf(row.get("priority").trim().toUpperCase(Locale.ROOT));
+        TaskStatus status = row.get("status") == null ? TaskStatus.TODO : TaskStatus.valueOf(row.get("status").trim().toUpperCase(Locale.ROOT));
+        LocalDateTime dueDate = parseDate(row.get("due"));
+        Task.toMicros(dueDate);
+        LocalDateTime completedDate = status == TaskStatus.COMPLETED ? now : null;
+        
+        switch (type.trim().toLowerCase(Locale.ROOT)) {
+            case "work":
+                return new WorkTask(id, title, description, priority, status, now, dueDate, completedDate,
+                                    row.get("project"), row.get("assignedTo"), parseInt(row.get("hours")));
+            case "personal":
+                int recurDays = parseInt(row.get("recurDays"));
+                return new PersonalTask(id, title, description, priority, status, now, dueDate, completedDate,
+                                        row.get("location"), recurDays > 0, recurDays);
+            case "shopping":
+                double budget = row.get("budget") == null ? 0.0 : Double.parseDouble(row.get("budget").trim());
+                return new ShoppingTask(id, title, description, priority, status, now, dueDate, completedDate,
+                                        row.getList("items"), budget, 0.0, row.get("store"));
+            default:
+                throw new InvalidTaskException("Unknown task type: " + type);
+        }
+    }
+    
+    private static int parseInt(String value) {
+        return value == null ? 0 : Integer.parseInt(value.trim());
+    }
+    
+    // Accepts "2026-03-01", "2026-03-01 09:30" and ISO "2026-03-01T09:30[:00]".
+    static LocalDateTime parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String date = value.trim();
+        if (date.length() == 10) {
+            return LocalDate.parse(date).atStartOfDay();
+        }
+        return LocalDateTime.parse(date.replace(' ', 'T'));
+    }
+    
+    private static HashMap<String, Integer> readHeader(String line) {
+        String[] names = parseCsvLine(line);
+        HashMap<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] != null) {
+                columns.put(names[i].trim(), i);
+            }
+        }
+        return columns;
+    }
+    
+    // Splits one CSV line; quoted fields may contain commas and doubled quotes. Empty fields are null.
+    static String[] parseCsvLine(String line) {
+        ArrayList<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+        return fields.toArray(new String[0]);
+    }
+    
+    private interface Row {
+        String get(String field);
+        
+        ArrayList<String> getList(String field);
+    }
+    
+    private static final class CsvRow implements Row {
+        private final HashMap<String, Integer> columns;
+        private final String[] values;
+        
+        CsvRow(HashMap<String, Integer> columns, String[] values) {
+            if (columns == null) {
+                throw new IllegalArgumentException("CSV file has no header row");
+            }
+            this.columns = columns;
+            this.values = values;
+        }
+        
+        @Override
+        public String get(String field) {
+            Integer column = columns.get(field);
+            return column == null || column >= values.length ? null : values[column];
+        }
+        
+        @Override
+        public ArrayList<String> getList(String field) {
+            ArrayList<String> items = new ArrayList<>();
+            String value = get(field);
+            if (value != null) {
+                for (String item : value.split(";")) {
+                    if (!item.isBlank()) {
+                        items.add(item.trim());
+                    }
+                }
+            }
+            return items;
+        }
+    }
+    
+    public static final class Result {
+        private int imported;
+        private int rejected;
+        private long elapsedNanos;
+        private final ArrayList<String> errors = new ArrayList<>();
+        
+        private void reject(int lineNumber, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + lineNumber + ": " + message);
+            }
+        }
+        
+        public int getImported() {
+            return imported;
+        }
+        
+        public int getRejected() {
+            return rejected;
+        }
+        
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+        
+        // The first few rejected lines with their reasons.
+        public List<String> getErrors() {
+            return errors;
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder summary = new StringBuilder();
+            summary.append("Imported ").append(imported).append(" tasks");
+            if (rejected > 0) {
+                summary.append(", rejected ").append(rejected);
+            }
+            summary.append(" in ").append(getElapsedMillis()).append(" ms");
+            for (String error : errors) {
+                summary.append("\n  ").append(error);
+            }
+            if (rejected > errors.size()) {
+                summary.append("\n  ...");
+            }
+            return summary.toString();
+        }
+    }
+}
@@ -0,0 +1,370 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Append-only write-ahead log of task mutations. Each record is [length][crc32][type][task id][body];
+// a torn or corrupt tail is detected on replay and cut off before new records are appended.
+public class TaskJournal implements TaskChangeListener, Closeable {
+    static final byte CREATE = 1;
+    static final byte STATUS = 2;
+    static final byte PRIORITY = 3;
+    static final byte DUE_DATE = 4;
+    static final byte TITLE = 5;
+    static final byte DELETE = 6;
+    static final byte ITEM_ADDED = 7;
+    static final byte ITEM_REMOVED = 8;
+    static final byte ACTUAL_COST = 9;
+    
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final long DEFAULT_GROUP_COMMIT_MILLIS = 10;
+    
+    private final FileChannel channel;
+    private final FsyncPolicy fsyncPolicy;
+    private final RecordBuffer recordBytes;
+    private final DataOutputStream record;
+    private final CRC32 checksum;
+    private ByteBuffer pending;
+    private boolean unforced;
+    private ScheduledExecutorService groupCommitter;
+    private volatile IOException backgroundFailure;
+    
+    private TaskJournal(FileChannel channel, FsyncPolicy fsyncPolicy, long groupCommitMillis) {
+        this.channel = channel;
+        this.fsyncPolicy = fsyncPolicy;
+        this.recordBytes = new RecordBuffer();
+        this.record = new DataOutputStream(recordBytes);
+        this.checksum = new CRC32();
+        this.pending = ByteBuffer.allocateDirect(64 * 1024);
+        
+        if (fsyncPolicy != FsyncPolicy.ALWAYS) {
+            groupCommitter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "task-journal-commit");
+                thread.setDaemon(true);
+                return thread;
+            });
+            groupCommitter.scheduleWithFixedDelay(this::commitInBackground, groupCommitMillis, groupCommitMillis,
+                                                  TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    public static TaskJournal open(Path file, FsyncPolicy fsyncPolicy) throws IOException {
+        return open(file, fsyncPolicy, DEFAULT_GROUP_COMMIT_MILLIS, -1);
+    }
+    
+    static TaskJournal open(Path file, FsyncPolicy fsyncPolicy, long validLength) throws IOException {
+        return open(file, fsyncPolicy, DEFAULT_GROUP_COMMIT_MILLIS, validLength);
+    }
+    
+    static TaskJournal open(Path file, FsyncPolicy fsyncPolicy, long groupCommitMillis, long validLength) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (validLength >= 0 && channel.size() > validLength) {
+            channel.truncate(validLength);
+        }
+        channel.position(channel.size());
+        return new TaskJournal(channel, fsyncPolicy, groupCommitMillis);
+    }
+    
+    // Applies every intact record and returns the length of that intact prefix.
+    public static long replay(Path file, TaskManager manager) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long validLength = 0;
+        CRC32 checksum = new CRC32();
+        byte[] payload = new byte[256];
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            while (true) {
+                int length;
+                int expectedChecksum;
+                try {
+                    length = in.readInt();
+                    expectedChecksum = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    break;
+                }
+                if (payload.length < length) {
+                    payload = new byte[Math.max(length, payload.length * 2)];
+                }
+                try {
+                    in.readFully(payload, 0, length);
+                } catch (EOFException e) {
+                    break;
+                }
+                checksum.reset();
+                checksum.update(payload, 0, length);
+                if ((int) checksum.getValue() != expectedChecksum) {
+                    break;
+                }
+                apply(manager, new DataInputStream(new ByteArrayInputStream(payload, 0, length)));
+                validLength += HEADER_BYTES + length;
+            }
+        }
+        return validLength;
+    }
+    
+    private static void apply(TaskManager manager, DataInput in) throws IOException {
+        byte type = in.readByte();
+        int taskId = in.readInt();
+        if (type == CREATE) {
+            Task task = TaskRecordCodec.readTask(in);
+            if (manager.findTaskById(task.getId()) == null) {
+                manager.restoreTask(task);
+            }
+            return;
+        }
+        if (type == DELETE) {
+            manager.discardTask(taskId);
+            return;
+        }
+        
+        Task task = manager.findTaskById(taskId);
+        if (task == null) {
+            return;
+        }
+        switch (type) {
+            case STATUS:
+                TaskStatus status = TaskRecordCodec.readEnum(in, TaskStatus.values());
+                task.restoreStatus(status, TaskRecordCodec.readDate(in));
+                break;
+            case PRIORITY:
+                task.setPriority(TaskRecordCodec.readEnum(in, Priority.values()));
+                break;
+            case DUE_DATE:
+                task.setDueDate(TaskRecordCodec.readDate(in));
+                break;
+            case TITLE:
+                try {
+                    task.setTitle(TaskRecordCodec.readString(in));
+                } catch (InvalidTaskException e) {
+                    throw new IOException("Journal holds an invalid title for task " + taskId, e);
+                }
+                break;
+            case ITEM_ADDED:
+                shoppingTask(task).addItem(TaskRecordCodec.readString(in));
+                break;
+            case ITEM_REMOVED:
+                shoppingTask(task).removeItem(TaskRecordCodec.readString(in));
+                break;
+            case ACTUAL_COST:
+                shoppingTask(task).setActualCost(in.readDouble());
+                break;
+            default:
+                throw new IOException("Unknown journal record type: " + type);
+        }
+    }
+    
+    private static ShoppingTask shoppingTask(Task task) throws IOException {
+        if (!(task instanceof ShoppingTask)) {
+            throw new IOException("Journal holds a shopping change for task " + task.getId() + ", which is a "
+                                  + task.getTaskType());
+        }
+        return (ShoppingTask) task;
+    }
+    
+    @Override
+    public void onTaskAdded(Task task) {
+        append(CREATE, task.getId(), out -> TaskRecordCodec.writeTask(out, task));
+    }
+    
+    @Override
+    public void onTaskRemoved(Task task) {
+        append(DELETE, task.getId(), out -> { });
+    }
+    
+    @Override
+    public void onStatusChanged(Task task, TaskStatus oldStatus) {
+        append(STATUS, task.getId(), out -> {
+            out.writeByte(task.getStatus().ordinal());
+            TaskRecordCodec.writeDate(out, task.getCompletedDate());
+        });
+    }
+    
+    @Override
+    public void onPriorityChanged(Task task, Priority oldPriority) {
+        append(PRIORITY, task.getId(), out -> out.writeByte(task.getPriority().ordinal()));
+    }
+    
+    @Override
+    public void onDueDateChanged(Task task, LocalDateTime oldDueDate) {
+        append(DUE_DATE, task.getId(), out -> TaskRecordCodec.writeDate(out, task.getDueDate()));
+    }
+    
+    @Override
+    public void onTitleChanged(Task task, String oldTitle) {
+        append(TITLE, task.getId(), out -> TaskRecordCodec.writeString(out, task.getTitle()));
+    }
+    
+    @Override
+    public void onItemAdded(ShoppingTask task, String item) {
+        append(ITEM_ADDED, task.getId(), out -> TaskRecordCodec.writeString(out, item));
+    }
+    
+    @Override
+    public void onItemRemoved(ShoppingTask task, String item) {
+        append(ITEM_REMOVED, task.getId(), out -> TaskRecordCodec.writeString(out, item));
+    }
+    
+    @Override
+    public void onActualCostChanged(ShoppingTask task, double oldCost) {
+        append(ACTUAL_COST, task.getId(), out -> out.writeDouble(task.getActualCost()));
+    }
+    
+    private interface RecordBody {
+        void writeTo(DataOutput out) throws IOException;
+    }
+    
+    private synchronized void append(byte type, int taskId, RecordBody body) {
+        checkWritable();
+        try {
+            writeRecord(type, taskId, body);
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                writePending();
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to task journal", e);
+        }
+    }
+    
+    // A bulk load appends every record under one lock and, with ALWAYS, forces them with one fsync.
+    @Override
+    public synchronized void onTasksAdded(Collection<? extends Task> tasks) {
+        checkWritable();
+        try {
+            for (Task task : tasks) {
+                writeRecord(CREATE, task.getId(), out -> TaskRecordCodec.writeTask(out, task));
+            }
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                writePending();
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to task journal", e);
+        }
+    }
+    
+    private void checkWritable() {
+        if (backgroundFailure != null) {
+            throw new UncheckedIOException("Task journal is no longer writable", backgroundFailure);
+        }
+    }
+    
+    private void writeRecord(byte type, int taskId, RecordBody body) throws IOException {
+        recordBytes.reset();
+        record.writeByte(type);
+        record.writeInt(taskId);
+        body.writeTo(record);
+        
+        int length = recordBytes.size();
+        checksum.reset();
+        checksum.update(recordBytes.array(), 0, length);
+        reserve(HEADER_BYTES + length);
+        pending.putInt(length);
+        pending.putInt((int) checksum.getValue());
+        pending.put(recordBytes.array(), 0, length);
+    }
+    
+    private void reserve(int bytes) throws IOException {
+        if (pending.remaining() >= bytes) {
+            return;
+        }
+        writePending();
+        if (pending.capacity() < bytes) {
+            pending = ByteBuffer.allocateDirect(bytes);
+        }
+    }
+    
+    private void writePending() throws IOException {
+        pending.flip();
+        while (pending.hasRemaining()) {
+            channel.write(pending);
+        }
+        pending.clear();
+    }
+    
+    // Group commit: everything appended since the last tick reaches the disk with a single force.
+    private void commitInBackground() {
+        try {
+            sync(fsyncPolicy == FsyncPolicy.GROUP);
+        } catch (IOException e) {
+            backgroundFailure = e;
+        }
+    }
+    
+    public void sync() throws IOException {
+        sync(true);
+    }
+    
+    private void sync(boolean force) throws IOException {
+        synchronized (this) {
+            if (pending.position() > 0) {
+                writePending();
+                unforced = true;
+            }
+            if (!force || !unforced) {
+                return;
+            }
+            unforced = false;
+        }
+        channel.force(false);
+    }
+    
+    public synchronized long size() throws IOException {
+        return channel.size() + pending.position();
+    }
+    
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (groupCommitter != null) {
+            groupCommitter.shutdown();
+            try {
+                groupCommitter.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            writePending();
+            channel.force(false);
+            channel.close();
+        }
+    }
+    
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+        RecordBuffer() {
+            super(256);
+        }
+        
+        byte[] array() {
+            return buf;
+        }
+    }
+}
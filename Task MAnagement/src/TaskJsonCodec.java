@@ -0,0 +1,1147 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+
+// JSON form of tasks, shared by the HTTP API and the JSON-lines importer. Written by hand rather than
+// by reflection: the encoder puts UTF-8 straight into a reusable byte buffer, with field names and
+// enum values encoded once up front and dates formatted from the task's raw microseconds, and the
+// decoder matches field names and enum values in place in the input. Field names are TaskImporter's,
+// so whatever the encoder writes decodes back into an equivalent task.
+public final class TaskJsonCodec {
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[] POINT_ZERO = ascii(".0");
+    private static final byte[] HEX_DIGITS = ascii("0123456789abcdef");
+    
+    private static final byte[] ID = fieldName("id");
+    private static final byte[] TYPE = fieldName("type");
+    private static final byte[] TITLE = fieldName("title");
+    private static final byte[] DESCRIPTION = fieldName("description");
+    private static final byte[] CATEGORY = fieldName("category");
+    private static final byte[] PRIORITY = fieldName("priority");
+    private static final byte[] STATUS = fieldName("status");
+    private static final byte[] CREATED = fieldName("created");
+    private static final byte[] DUE = fieldName("due");
+    private static final byte[] COMPLETED = fieldName("completed");
+    private static final byte[] OVERDUE = fieldName("overdue");
+    private static final byte[] PROJECT = fieldName("project");
+    private static final byte[] ASSIGNED_TO = fieldName("assignedTo");
+    private static final byte[] HOURS = fieldName("hours");
+    private static final byte[] LOCATION = fieldName("location");
+    private static final byte[] RECUR_DAYS = fieldName("recurDays");
+    private static final byte[] SERIES_ID = fieldName("seriesId");
+    private static final byte[] STORE = fieldName("store");
+    private static final byte[] BUDGET = fieldName("budget");
+    private static final byte[] ACTUAL_COST = fieldName("actualCost");
+    private static final byte[] ITEMS = fieldName("items");
+    
+    private static final int WORK = 0;
+    private static final int PERSONAL = 1;
+    private static final int SHOPPING = 2;
+    private static final String[] TYPE_NAMES = {"work", "personal", "shopping"};
+    private static final byte[][] ENCODED_TYPES = quoted(TYPE_NAMES);
+    
+    private static final Priority[] PRIORITIES = Priority.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final TaskCategory[] CATEGORIES = TaskCategory.values();
+    private static final String[] PRIORITY_NAMES = names(PRIORITIES);
+    private static final String[] STATUS_NAMES = names(STATUSES);
+    private static final byte[][] ENCODED_PRIORITIES = quoted(PRIORITY_NAMES);
+    private static final byte[][] ENCODED_STATUSES = quoted(STATUS_NAMES);
+    private static final byte[][] ENCODED_CATEGORIES = quoted(names(CATEGORIES));
+    
+    private static final int[] NANOS_PER_DIGIT = {100_000_000, 10_000_000, 1_000_000, 100_000, 10_000, 1_000, 100, 10, 1};
+    
+    private TaskJsonCodec() {
+    }
+    
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+    
+    private static byte[] fieldName(String name) {
+        return ascii('"' + name + "\":");
+    }
+    
+    private static String[] names(Enum<?>[] values) {
+        String[] names = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            names[i] = values[i].name();
+        }
+        return names;
+    }
+    
+    private static byte[][] quoted(String[] names) {
+        byte[][] encoded = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            encoded[i] = ascii('"' + names[i] + '"');
+        }
+        return encoded;
+    }
+    
+    private static int typeOf(Task task) throws IOException {
+        if (task instanceof WorkTask) {
+            return WORK;
+        } else if (task instanceof PersonalTask) {
+            return PERSONAL;
+        } else if (task instanceof ShoppingTask) {
+            return SHOPPING;
+        }
+        throw new IOException("Unsupported task type: " + task.getTaskType());
+    }
+    
+    // Writes JSON into a byte buffer that is kept across calls. Given an OutputStream, the buffer is
+    // passed on each time it fills, so output of any size goes through a fixed amount of memory;
+    // without one the buffer grows and is read back with toByteArray or writeTo. Commas are inserted
+    // automatically. Not thread-safe; reset() to reuse it for another response.
+    public static final class Encoder implements Closeable {
+        private static final int MAX_DEPTH = 63;
+        
+        private OutputStream out;
+        private byte[] buffer;
+        private int length;
+        private int depth;
+        // Bit d is set while the object or array open at depth d has no members yet.
+        private long emptyContainers;
+        private boolean afterName;
+        private long nowMicros;
+        // The date part of the last date written; tasks written together mostly share a few days.
+        private long cachedDay = Long.MIN_VALUE;
+        private final byte[] cachedDate = new byte[10];
+        
+        public Encoder() {
+            this(null, 1024);
+        }
+        
+        public Encoder(OutputStream out, int bufferSize) {
+            this.buffer = new byte[Math.max(bufferSize, 64)];
+            reset(out);
+        }
+        
+        // Starts over on a new stream (or in memory, for null), keeping the buffer.
+        public void reset(OutputStream out) {
+            this.out = out;
+            this.length = 0;
+            this.depth = 0;
+            this.emptyContainers = 0;
+            this.afterName = false;
+            this.nowMicros = Task.toMicros(LocalDateTime.now());
+        }
+        
+        public Encoder beginObject() throws IOException {
+            return open('{');
+        }
+        
+        public Encoder endObject() throws IOException {
+            return close('}');
+        }
+        
+        public Encoder beginArray() throws IOException {
+            return open('[');
+        }
+        
+        public Encoder endArray() throws IOException {
+            return close(']');
+        }
+        
+        // Ends a top-level value, for JSON-lines output.
+        public Encoder newLine() throws IOException {
+            if (depth != 0) {
+                throw new IllegalStateException("Unclosed object or array");
+            }
+            put('\n');
+            return this;
+        }
+        
+        public Encoder name(String name) throws IOException {
+            beforeValue();
+            string(name);
+            put(':');
+            afterName = true;
+            return this;
+        }
+        
+        public Encoder value(String value) throws IOException {
+            beforeValue();
+            if (value == null) {
+                raw(NULL);
+            } else {
+                string(value);
+            }
+            return this;
+        }
+        
+        public Encoder value(long value) throws IOException {
+            beforeValue();
+            number(value);
+            return this;
+        }
+        
+        public Encoder value(double value) throws IOException {
+            beforeValue();
+            number(value);
+            return this;
+        }
+        
+        public Encoder value(boolean value) throws IOException {
+            beforeValue();
+            raw(value ? TRUE : FALSE);
+            return this;
+        }
+        
+        public Encoder task(Task task) throws IOException {
+            int type = typeOf(task);
+            beginObject();
+            field(ID);
+            number(task.getId());
+            field(TYPE);
+            raw(ENCODED_TYPES[type]);
+            field(TITLE);
+            string(task.getTitle());
+            field(DESCRIPTION);
+            nullableString(task.getDescription());
+            field(CATEGORY);
+            raw(ENCODED_CATEGORIES[task.getCategory().ordinal()]);
+            field(PRIORITY);
+            raw(ENCODED_PRIORITIES[task.getPriority().ordinal()]);
+            field(STATUS);
+            TaskStatus status = task.getStatus();
+            raw(ENCODED_STATUSES[status.ordinal()]);
+            field(CREATED);
+            date(task.getCreatedMicros());
+            field(DUE);
+            long due = task.getDueMicros();
+            date(due);
+            field(COMPLETED);
+            date(task.getCompletedMicros());
+            field(OVERDUE);
+            raw(!status.isComplete() && due != Task.NO_DATE && nowMicros > due ? TRUE : FALSE);
+            
+            if (type == WORK) {
+                WorkTask work = (WorkTask) task;
+                field(PROJECT);
+                nullableString(work.getProject());
+                field(ASSIGNED_TO);
+                nullableString(work.getAssignedTo());
+                field(HOURS);
+                number(work.getEstimatedHours());
+            } else if (type == PERSONAL) {
+                PersonalTask personal = (PersonalTask) task;
+                field(LOCATION);
+                nullableString(personal.getLocation());
+                field(RECUR_DAYS);
+                number(personal.getRecurDays());
+                field(SERIES_ID);
+                number(personal.getSeriesId());
+            } else {
+                ShoppingTask shopping = (ShoppingTask) task;
+                field(STORE);
+                nullableString(shopping.getStore());
+                field(BUDGET);
+                number(shopping.getEstimatedBudget());
+                field(ACTUAL_COST);
+                number(shopping.getActualCost());
+                name(ITEMS);
+                beginArray();
+                for (String item : shopping.getItems()) {
+                    value(item);
+                }
+                endArray();
+            }
+            return endObject();
+        }
+        
+        public Encoder tasks(Iterator<? extends Task> tasks) throws IOException {
+            beginArray();
+            while (tasks.hasNext()) {
+                task(tasks.next());
+            }
+            return endArray();
+        }
+        
+        // Passes everything buffered so far on to the stream.
+        public void flush() throws IOException {
+            if (out != null) {
+                out.write(buffer, 0, length);
+                length = 0;
+                out.flush();
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            flush();
+            if (out != null) {
+                out.close();
+            }
+        }
+        
+        public int size() {
+            return length;
+        }
+        
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+        
+        public void writeTo(OutputStream target) throws IOException {
+            target.write(buffer, 0, length);
+        }
+        
+        private Encoder open(char bracket) throws IOException {
+            beforeValue();
+            if (depth == MAX_DEPTH) {
+                throw new IllegalStateException("JSON nested too deeply");
+            }
+            depth++;
+            emptyContainers |= 1L << depth;
+            put(bracket);
+            return this;
+        }
+        
+        private Encoder close(char bracket) throws IOException {
+            if (depth == 0 || afterName) {
+                throw new IllegalStateException("Nothing to close");
+            }
+            emptyContainers &= ~(1L << depth);
+            depth--;
+            put(bracket);
+            return this;
+        }
+        
+        // Writes the comma before every member but the first, unless a name has just been written.
+        private void beforeValue() throws IOException {
+            if (afterName) {
+                afterName = false;
+                return;
+            }
+            long bit = 1L << depth;
+            if ((emptyContainers & bit) != 0) {
+                emptyContainers &= ~bit;
+            } else if (depth > 0) {
+                put(',');
+            }
+        }
+        
+        // A pre-encoded name; the caller writes the value directly after it.
+        private void field(byte[] encodedName) throws IOException {
+            beforeValue();
+            raw(encodedName);
+        }
+        
+        // A pre-encoded name followed by a value written through the public methods.
+        private void name(byte[] encodedName) throws IOException {
+            field(encodedName);
+            afterName = true;
+        }
+        
+        private void ensure(int count) throws IOException {
+            if (length + count <= buffer.length) {
+                return;
+            }
+            if (out != null) {
+                out.write(buffer, 0, length);
+                length = 0;
+                if (count <= buffer.length) {
+                    return;
+                }
+            }
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + count));
+        }
+        
+        private void put(char c) throws IOException {
+            ensure(1);
+            buffer[length++] = (byte) c;
+        }
+        
+        private void raw(byte[] bytes) throws IOException {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        }
+        
+        private void nullableString(String value) throws IOException {
+            if (value == null) {
+                raw(NULL);
+            } else {
+                string(value);
+            }
+        }
+        
+        // Encodes UTF-8 in place; an unpaired surrogate becomes '?', as String.getBytes does.
+        private void string(String value) throws IOException {
+            put('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                ensure(6);
+                if (c < 0x80) {
+                    if (c >= 0x20 && c != '"' && c != '\\') {
+                        buffer[length++] = (byte) c;
+                    } else {
+                        escape(c);
+                    }
+                } else if (c < 0x800) {
+                    buffer[length++] = (byte) (0xc0 | c >> 6);
+                    buffer[length++] = (byte) (0x80 | c & 0x3f);
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                           && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[length++] = (byte) (0xf0 | codePoint >> 18);
+                    buffer[length++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                    buffer[length++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                    buffer[length++] = (byte) (0x80 | codePoint & 0x3f);
+                } else if (Character.isSurrogate(c)) {
+                    buffer[length++] = '?';
+                } else {
+                    buffer[length++] = (byte) (0xe0 | c >> 12);
+                    buffer[length++] = (byte) (0x80 | c >> 6 & 0x3f);
+                    buffer[length++] = (byte) (0x80 | c & 0x3f);
+                }
+            }
+            put('"');
+        }
+        
+        // Caller has ensured room for six bytes.
+        private void escape(char c) {
+            buffer[length++] = '\\';
+            switch (c) {
+                case '"':
+                case '\\':
+                    buffer[length++] = (byte) c;
+                    break;
+                case '\n':
+                    buffer[length++] = 'n';
+                    break;
+                case '\r':
+                    buffer[length++] = 'r';
+                    break;
+                case '\t':
+                    buffer[length++] = 't';
+                    break;
+                case '\b':
+                    buffer[length++] = 'b';
+                    break;
+                case '\f':
+                    buffer[length++] = 'f';
+                    break;
+                default:
+                    buffer[length++] = 'u';
+                    buffer[length++] = '0';
+                    buffer[length++] = '0';
+                    buffer[length++] = HEX_DIGITS[c >> 4];
+                    buffer[length++] = HEX_DIGITS[c & 0xf];
+            }
+        }
+        
+        private void number(long value) throws IOException {
+            if (value == Long.MIN_VALUE) {
+                raw(ascii(Long.toString(value)));
+                return;
+            }
+            ensure(20);
+            if (value < 0) {
+                buffer[length++] = '-';
+                value = -value;
+            }
+            int digits = 1;
+            for (long rest = value / 10; rest > 0; rest /= 10) {
+                digits++;
+            }
+            for (int i = length + digits - 1; i >= length; i--) {
+                buffer[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            length += digits;
+        }
+        
+        // Whole amounts, which are most budgets and costs, skip Double.toString.
+        private void number(double value) throws IOException {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                raw(NULL);
+            } else if (value == (long) value && Math.abs(value) < 1e15) {
+                number((long) value);
+                raw(POINT_ZERO);
+            } else {
+                raw(ascii(Double.toString(value)));
+            }
+        }
+        
+        // yyyy-MM-ddTHH:mm:ss, plus .SSSSSS when there are microseconds.
+        private void date(long micros) throws IOException {
+            if (micros == Task.NO_DATE) {
+                raw(NULL);
+                return;
+            }
+            long seconds = Math.floorDiv(micros, 1_000_000L);
+            int fraction = (int) Math.floorMod(micros, 1_000_000L);
+            long day = Math.floorDiv(seconds, 86_400L);
+            int secondOfDay = (int) Math.floorMod(seconds, 86_400L);
+            if (day != cachedDay) {
+                LocalDate date = LocalDate.ofEpochDay(day);
+                if (date.getYear() < 0 || date.getYear() > 9999) {
+                    string(LocalDateTime.ofEpochSecond(seconds, fraction * 1000, ZoneOffset.UTC).toString());
+                    return;
+                }
+                digits(cachedDate, 0, date.getYear(), 4);
+                cachedDate[4] = '-';
+                digits(cachedDate, 5, date.getMonthValue(), 2);
+                cachedDate[7] = '-';
+                digits(cachedDate, 8, date.getDayOfMonth(), 2);
+                cachedDay = day;
+            }
+            ensure(29);
+            buffer[length++] = '"';
+            System.arraycopy(cachedDate, 0, buffer, length, cachedDate.length);
+            length += cachedDate.length;
+            buffer[length++] = 'T';
+            digits(buffer, length, secondOfDay / 3600, 2);
+            buffer[length + 2] = ':';
+            digits(buffer, length + 3, secondOfDay / 60 % 60, 2);
+            buffer[length + 5] = ':';
+            digits(buffer, length + 6, secondOfDay % 60, 2);
+            length += 8;
+            if (fraction != 0) {
+                buffer[length++] = '.';
+                digits(buffer, length, fraction, 6);
+                length += 6;
+            }
+            buffer[length++] = '"';
+        }
+        
+        private static void digits(byte[] target, int offset, int value, int count) {
+            for (int i = offset + count - 1; i >= offset; i--) {
+                target[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+        }
+    }
+    
+    // Reads one flat JSON object describing a task. Names, enum values and canonical dates are
+    // matched in place, so the only objects made are the strings and dates the task keeps. Enum
+    // values are case-insensitive; unknown fields (id, category, overdue) are skipped. Not thread-safe.
+    public static final class Decoder {
+        // Same limit the encoder enforces; skipped values nest no deeper than ones we write.
+        private static final int MAX_DEPTH = 63;
+        
+        private String text;
+        private int position;
+        private StringBuilder scratch;
+        
+        private int type;
+        private String unknownType;
+        private String title;
+        private String description;
+        private Priority priority;
+        private TaskStatus status;
+        private LocalDateTime createdDate;
+        private LocalDateTime dueDate;
+        private boolean hasDueDate;
+        private LocalDateTime completedDate;
+        private String project;
+        private String assignedTo;
+        private int hours;
+        private String location;
+        private int recurDays;
+        private int sourceId;
+        private int seriesId;
+        private String store;
+        private double budget;
+        private double actualCost;
+        private ArrayList<String> items;
+        private String lastName;
+        
+        public Task decode(String json, int id, LocalDateTime now) throws InvalidTaskException {
+            return read(json).toTask(id, now);
+        }
+        
+        // Replaces whatever the previous call read.
+        public Decoder read(String json) {
+            clear();
+            text = json;
+            position = 0;
+            try {
+                expect('{');
+                if (!consume('}')) {
+                    do {
+                        readField();
+                    } while (consume(','));
+                    expect('}');
+                }
+                skipWhitespace();
+                if (position != text.length()) {
+                    throw malformed();
+                }
+            } finally {
+                text = null;
+            }
+            return this;
+        }
+        
+        // Builds a task from what was read, with the importer's defaults for missing fields.
+        public Task toTask(int id, LocalDateTime now) throws InvalidTaskException {
+            if (unknownType != null) {
+                throw new InvalidTaskException("Unknown task type: " + unknownType);
+            }
+            if (type < 0) {
+                throw new InvalidTaskException("Missing task type");
+            }
+            Task.validateTitle(title);
+            String taskDescription = description == null ? "" : description;
+            Priority taskPriority = priority == null ? Priority.MEDIUM : priority;
+            TaskStatus taskStatus = status == null ? TaskStatus.TODO : status;
+            LocalDateTime created = createdDate == null ? now : createdDate;
+            LocalDateTime completed = null;
+            if (taskStatus == TaskStatus.COMPLETED) {
+                completed = completedDate == null ? now : completedDate;
+            }
+            
+            switch (type) {
+                case WORK:
+                    return new WorkTask(id, title, taskDescription, taskPriority, taskStatus, created, dueDate, completed,
+                                        project, assignedTo, hours);
+                case PERSONAL:
+                    // An occurrence carries its series' recurDays but does not recur itself.
+                    return new PersonalTask(id, title, taskDescription, taskPriority, taskStatus, created, dueDate,
+                                            completed, location, recurDays > 0 && seriesId == 0, recurDays, seriesId);
+                default:
+                    return new ShoppingTask(id, title, taskDescription, taskPriority, taskStatus, created, dueDate,
+                                            completed, items == null ? new ArrayList<>() : items, budget, actualCost, store);
+            }
+        }
+        
+        // The "id" the task had where it was exported, or 0; toTask always takes a new one.
+        public int getSourceId() {
+            return sourceId;
+        }
+        
+        // For partial updates; each is null when the field was absent.
+        public String getTitle() {
+            return title;
+        }
+        
+        public Priority getPriority() {
+            return priority;
+        }
+        
+        public TaskStatus getStatus() {
+            return status;
+        }
+        
+        // True when "due" was present, even as null or "" to clear it.
+        public boolean hasDueDate() {
+            return hasDueDate;
+        }
+        
+        public LocalDateTime getDueDate() {
+            return dueDate;
+        }
+        
+        private void clear() {
+            type = -1;
+            unknownType = null;
+            title = null;
+            description = null;
+            priority = null;
+            status = null;
+            createdDate = null;
+            dueDate = null;
+            hasDueDate = false;
+            completedDate = null;
+            project = null;
+            assignedTo = null;
+            hours = 0;
+            location = null;
+            recurDays = 0;
+            sourceId = 0;
+            seriesId = 0;
+            store = null;
+            budget = 0.0;
+            actualCost = 0.0;
+            items = null;
+        }
+        
+        private void readField() {
+            expect('"');
+            int start = position;
+            int end = text.indexOf('"', start);
+            if (end < 0) {
+                throw malformed();
+            }
+            if (hasEscape(start, end)) {
+                // Escaped names are never ours.
+                position = start - 1;
+                skipString();
+                expect(':');
+                skipValue(1);
+                return;
+            }
+            position = end + 1;
+            expect(':');
+            
+            if (nameIs(start, end, "title")) {
+                title = readText();
+            } else if (nameIs(start, end, "type")) {
+                readType();
+            } else if (nameIs(start, end, "description")) {
+                description = readText();
+            } else if (nameIs(start, end, "priority")) {
+                priority = readEnum(PRIORITIES, PRIORITY_NAMES, "priority");
+            } else if (nameIs(start, end, "status")) {
+                status = readEnum(STATUSES, STATUS_NAMES, "status");
+            } else if (nameIs(start, end, "due")) {
+                dueDate = readDate();
+                hasDueDate = true;
+            } else if (nameIs(start, end, "created")) {
+                createdDate = readDate();
+            } else if (nameIs(start, end, "completed")) {
+                completedDate = readDate();
+            } else if (nameIs(start, end, "project")) {
+                project = readText();
+            } else if (nameIs(start, end, "assignedTo")) {
+                assignedTo = readText();
+            } else if (nameIs(start, end, "hours")) {
+                hours = readInt();
+            } else if (nameIs(start, end, "location")) {
+                location = readText();
+            } else if (nameIs(start, end, "recurDays")) {
+                recurDays = readInt();
+            } else if (nameIs(start, end, "id")) {
+                sourceId = readInt();
+            } else if (nameIs(start, end, "seriesId")) {
+                seriesId = readInt();
+            } else if (nameIs(start, end, "store")) {
+                store = readText();
+            } else if (nameIs(start, end, "budget")) {
+                budget = readDouble();
+            } else if (nameIs(start, end, "actualCost")) {
+                actualCost = readDouble();
+            } else if (nameIs(start, end, "items")) {
+                items = readItems();
+            } else {
+                skipValue(1);
+            }
+        }
+        
+        // True when the string starting at start has an escape before the quote found at end; that
+        // quote may itself be escaped, so the string is then read properly.
+        private boolean hasEscape(int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (text.charAt(i) == '\\') {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private boolean nameIs(int start, int end, String name) {
+            return end - start == name.length() && text.startsWith(name, start);
+        }
+        
+        // A string, or a number or boolean taken as its text; null for JSON null.
+        private String readText() {
+            if (peek() == '"') {
+                return readString();
+            }
+            int start = position;
+            int end = readLiteral();
+            return isNull(start, end) ? null : text.substring(start, end);
+        }
+        
+        private void readType() {
+            if (peek() != '"') {
+                String value = readText();
+                type = -1;
+                unknownType = value;
+                return;
+            }
+            int match = readName(TYPE_NAMES);
+            if (match >= 0) {
+                type = match;
+            } else {
+                unknownType = lastName;
+            }
+        }
+        
+        private <E extends Enum<E>> E readEnum(E[] values, String[] names, String field) {
+            if (peek() != '"') {
+                int start = position;
+                int end = readLiteral();
+                if (isNull(start, end)) {
+                    return null;
+                }
+                throw new IllegalArgumentException("Unknown " + field + ": " + text.substring(start, end));
+            }
+            int match = readName(names);
+            if (match < 0) {
+                throw new IllegalArgumentException("Unknown " + field + ": " + lastName);
+            }
+            return values[match];
+        }
+        
+        // Reads a string and returns the index of the name it equals, ignoring case and surrounding
+        // spaces, or -1 with the string kept in lastName.
+        private int readName(String[] names) {
+            String source = text;
+            expect('"');
+            int start = position;
+            int end = text.indexOf('"', start);
+            if (end < 0) {
+                throw malformed();
+            }
+            if (hasEscape(start, end)) {
+                position = start - 1;
+                source = readString();
+                start = 0;
+                end = source.length();
+            } else {
+                position = end + 1;
+            }
+            while (start < end && Character.isWhitespace(source.charAt(start))) {
+                start++;
+            }
+            while (end > start && Character.isWhitespace(source.charAt(end - 1))) {
+                end--;
+            }
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].length() == end - start && source.regionMatches(true, start, names[i], 0, end - start)) {
+                    return i;
+                }
+            }
+            lastName = source.substring(start, end);
+            return -1;
+        }
+        
+        private LocalDateTime readDate() {
+            if (peek() != '"') {
+                int start = position;
+                int end = readLiteral();
+                if (isNull(start, end)) {
+                    return null;
+                }
+                throw new IllegalArgumentException("Dates must be strings");
+            }
+            expect('"');
+            int start = position;
+            int end = text.indexOf('"', start);
+            if (end < 0) {
+                throw malformed();
+            }
+            if (hasEscape(start, end)) {
+                position = start - 1;
+                return TaskImporter.parseDate(readString());
+            }
+            position = end + 1;
+            LocalDateTime date = parseCanonicalDate(start, end);
+            return date != null ? date : TaskImporter.parseDate(text.substring(start, end));
+        }
+        
+        // yyyy-MM-dd, or yyyy-MM-dd[T ]HH:mm[:ss[.fraction]]; null for anything else, which then goes
+        // through the importer's slower, more forgiving parser (and its error messages).
+        private LocalDateTime parseCanonicalDate(int start, int end) {
+            int length = end - start;
+            if (length != 10 && length < 16) {
+                return null;
+            }
+            int year = digits(start, 4);
+            int month = digits(start + 5, 2);
+            int day = digits(start + 8, 2);
+            if (year < 0 || month < 0 || day < 0 || text.charAt(start + 4) != '-' || text.charAt(start + 7) != '-') {
+                return null;
+            }
+            int hour = 0;
+            int minute = 0;
+            int second = 0;
+            int nano = 0;
+            if (length > 10) {
+                char separator = text.charAt(start + 10);
+                hour = digits(start + 11, 2);
+                minute = digits(start + 14, 2);
+                if ((separator != 'T' && separator != ' ') || hour < 0 || minute < 0 || text.charAt(start + 13) != ':') {
+                    return null;
+                }
+                int next = start + 16;
+                if (next < end) {
+                    if (text.charAt(next) != ':' || next + 3 > end || (second = digits(next + 1, 2)) < 0) {
+                        return null;
+                    }
+                    next += 3;
+                }
+                if (next < end) {
+                    int fractionDigits = end - next - 1;
+                    if (text.charAt(next) != '.' || fractionDigits < 1 || fractionDigits > 9) {
+                        return null;
+                    }
+                    int fraction = digits(next + 1, fractionDigits);
+                    if (fraction < 0) {
+                        return null;
+                    }
+                    nano = fraction * NANOS_PER_DIGIT[fractionDigits - 1];
+                }
+            }
+            try {
+                return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+            } catch (DateTimeException e) {
+                return null;
+            }
+        }
+        
+        private int digits(int start, int count) {
+            int value = 0;
+            for (int i = start; i < start + count; i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+        
+        // Numbers may also be given as strings, as CSV-minded producers tend to.
+        private int readInt() {
+            if (peek() == '"') {
+                return Integer.parseInt(readString().trim());
+            }
+            int start = position;
+            int end = readLiteral();
+            return isNull(start, end) ? 0 : Integer.parseInt(text, start, end, 10);
+        }
+        
+        private double readDouble() {
+            String value = readText();
+            return value == null ? 0.0 : Double.parseDouble(value.trim());
+        }
+        
+        // An array of strings, or a single string.
+        private ArrayList<String> readItems() {
+            ArrayList<String> values = new ArrayList<>();
+            if (peek() != '[') {
+                String item = readText();
+                if (item != null) {
+                    values.add(item);
+                }
+                return values;
+            }
+            position++;
+            if (consume(']')) {
+                return values;
+            }
+            do {
+                String item = readText();
+                if (item != null) {
+                    values.add(item);
+                }
+            } while (consume(','));
+            expect(']');
+            return values;
+        }
+        
+        private String readString() {
+            expect('"');
+            int start = position;
+            while (position < text.length()) {
+                char c = text.charAt(position);
+                if (c == '"') {
+                    return text.substring(start, position++);
+                }
+                if (c == '\\') {
+                    return readEscapedString(start);
+                }
+                position++;
+            }
+            throw malformed();
+        }
+        
+        private String readEscapedString(int start) {
+            if (scratch == null) {
+                scratch = new StringBuilder();
+            }
+            StringBuilder value = scratch;
+            value.setLength(0);
+            value.append(text, start, position);
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    break;
+                }
+                char escape = text.charAt(position++);
+                switch (escape) {
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw malformed();
+                        }
+                        value.append((char) Integer.parseInt(text, position, position + 4, 16));
+                        position += 4;
+                        break;
+                    default:
+                        value.append(escape);
+                }
+            }
+            throw malformed();
+        }
+        
+        private void skipString() {
+            expect('"');
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return;
+                }
+                if (c == '\\') {
+                    position++;
+                }
+            }
+            throw malformed();
+        }
+        
+        // depth counts the containers already open around the value, so hostile nesting is rejected
+        // before it can run the stack out.
+        private void skipValue(int depth) {
+            char c = peek();
+            if (c == '"') {
+                skipString();
+            } else if (c == '{' || c == '[') {
+                if (depth == MAX_DEPTH) {
+                    throw malformed();
+                }
+                char close = c == '{' ? '}' : ']';
+                position++;
+                if (consume(close)) {
+                    return;
+                }
+                do {
+                    if (c == '{') {
+                        skipString();
+                        expect(':');
+                    }
+                    skipValue(depth + 1);
+                } while (consume(','));
+                expect(close);
+            } else {
+                readLiteral();
+            }
+        }
+        
+        // Reads null, true, false or a number and returns where it ends.
+        private int readLiteral() {
+            int start = position;
+            while (position < text.length() && ",}] \t\r\n".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            if (!isNull(start, position) && !isLiteral(start, position, "true") && !isLiteral(start, position, "false")
+                && !isNumber(start, position)) {
+                throw malformed();
+            }
+            return position;
+        }
+        
+        private boolean isNull(int start, int end) {
+            return isLiteral(start, end, "null");
+        }
+        
+        private boolean isLiteral(int start, int end, String literal) {
+            return end - start == literal.length() && text.startsWith(literal, start);
+        }
+        
+        // JSON number syntax: -?digits[.digits][(e|E)[+-]digits]
+        private boolean isNumber(int start, int end) {
+            int i = start;
+            if (i < end && text.charAt(i) == '-') {
+                i++;
+            }
+            int digitsStart = i;
+            while (i < end && Character.isDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i == digitsStart) {
+                return false;
+            }
+            if (i < end && text.charAt(i) == '.') {
+                int fractionStart = ++i;
+                while (i < end && Character.isDigit(text.charAt(i))) {
+                    i++;
+                }
+                if (i == fractionStart) {
+                    return false;
+                }
+            }
+            if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+                i++;
+                if (i < end && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+                    i++;
+                }
+                int exponentStart = i;
+                while (i < end && Character.isDigit(text.charAt(i))) {
+                    i++;
+                }
+                if (i == exponentStart) {
+                    return false;
+                }
+            }
+            return i == end;
+        }
+        
+        private char peek() {
+            skipWhitespace();
+            if (position >= text.length()) {
+                throw malformed();
+            }
+            return text.charAt(position);
+        }
+        
+        private boolean consume(char c) {
+            if (peek() == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+        
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw malformed();
+            }
+        }
+        
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+        
+        private IllegalArgumentException malformed() {
+            return new IllegalArgumentException("Malformed JSON at column " + (position + 1));
+        }
+    }
+}
@@ -1,26 +1,104 @@
 import java.util.Scanner;
 import java.util.ArrayList;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class TaskManagementApp {
     
+    private static final String DATA_DIRECTORY = "task-data";
+    private static final long SNAPSHOT_INTERVAL_MINUTES = 5;
+    private static final long SNAPSHOT_MIN_JOURNAL_BYTES = 1024 * 1024;
+    private static final long RECURRENCE_INTERVAL_MINUTES = 1;
+    
     private Scanner scanner;
     private TaskManager taskManager;
     private TaskStatistics statistics;
     private ReportGenerator reportGenerator;
+    private TaskPersistence persistence;
+    private RecurrenceEngine recurrence;
     
     public TaskManagementApp() {
         scanner = new Scanner(System.in);
-        taskManager = new TaskManager();
+        taskManager = new TaskManager(new ConcurrentTaskStore());
         statistics = new TaskStatistics(taskManager);
         reportGenerator = new ReportGenerator(taskManager);
+        recurrence = new RecurrenceEngine(taskManager);
+        taskManager.addDeadlineListener(new DeadlineListener() {
+            @Override
+            public void onDueSoon(Task task) {
+                System.out.println("⏰ Due soon: [ID:" + task.getId() + "] " + task.getTitle());
+            }
+            
+            @Override
+            public void onOverdue(Task task) {
+                System.out.println("⚠ Now overdue: [ID:" + task.getId() + "] " + task.getTitle());
+            }
+        });
     }
     
+    // With "--server <port>" the tasks are served as a JSON API instead of the interactive menu.
     public static void main(String[] args) {
         TaskManagementApp app = new TaskManagementApp();
-        app.loadSampleData();
-        app.run();
+        boolean serverMode = args.length == 2 && args[0].equals("--server");
+        if (serverMode) {
+            app.taskManager.setOutputSink(OutputSink.NONE);
+        }
+        app.openPersistence();
+        if (app.taskManager.getTotalTaskCount() == 0) {
+            app.loadSampleData();
+        }
+        app.recurrence.startPeriodicExpansion(RECURRENCE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        if (serverMode) {
+            app.serve(Integer.parseInt(args[1]));
+        } else {
+            app.run();
+        }
+    }
+    
+    // Runs until the process is stopped; storage is closed from a shutdown hook.
+    private void serve(int port) {
+        try {
+            TaskApiServer server = new TaskApiServer(taskManager, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                recurrence.close();
+                closePersistence();
+            }, "task-api-shutdown"));
+            System.out.println("Task API listening on http://localhost:" + server.getPort() + "/tasks");
+        } catch (IOException e) {
+            System.out.println("⚠ Could not start the task API: " + e.getMessage());
+            recurrence.close();
+            closePersistence();
+        }
+    }
+    
+    private void openPersistence() {
+        try {
+            persistence = TaskPersistence.open(Paths.get(DATA_DIRECTORY), taskManager, FsyncPolicy.GROUP);
+            if (taskManager.getTotalTaskCount() > 0) {
+                System.out.println("Restored " + taskManager.getTotalTaskCount() + " tasks from " + DATA_DIRECTORY);
+            }
+            persistence.startPeriodicSnapshots(SNAPSHOT_INTERVAL_MINUTES, TimeUnit.MINUTES, SNAPSHOT_MIN_JOURNAL_BYTES);
+        } catch (IOException e) {
+            System.out.println("⚠ Could not open task storage, changes will not be saved: " + e.getMessage());
+        }
+    }
+    
+    private void closePersistence() {
+        if (persistence == null) {
+            return;
+        }
+        try {
+            persistence.close();
+        } catch (IOException e) {
+            System.out.println("⚠ Could not close task storage: " + e.getMessage());
+        }
     }
     
     public void run() {
@@ -32,6 +110,7 @@ public class TaskManagementApp {
         boolean running = true;
         
         while (running) {
+            taskManager.checkDeadlines();
             displayMainMenu();
             
             try {
@@ -71,6 +150,9 @@ public class TaskManagementApp {
                     case 11:
                         viewOverdueAndUpcoming();
                         break;
+                    case 12:
+                        importTasks();
+                        break;
                     case 0:
                         running = false;
                         System.out.println("\n✓ Thank you for using Task Management System!");
@@ -93,6 +175,8 @@ public class TaskManagementApp {
             }
         }
         
+        recurrence.close();
+        closePersistence();
         scanner.close();
     }
     
@@ -111,6 +195,7 @@ public class TaskManagementApp {
         System.out.println("║  9. View Statistics                    ║");
         System.out.println("║ 10. Generate Reports                   ║");
         System.out.println("║ 11. Overdue & Upcoming Tasks           ║");
+        System.out.println("║ 12. Import Tasks from File             ║");
         System.out.println("║  0. Exit                               ║");
         System.out.println("╚════════════════════════════════════════╝");
         System.out.print("Enter your choice: ");
@@ -394,6 +479,7 @@ public class TaskManagementApp {
         System.out.println("1. Summary Report");
         System.out.println("2. Detailed Report");
         System.out.println("3. Productivity Analysis");
+        System.out.println("4. Export Detailed Report to File");
         System.out.print("Choice: ");
         
         try {
@@ -409,11 +495,33 @@ public class TaskManagementApp {
                 case 3:
                     reportGenerator.displayProductivityAnalysis();
                     break;
+                case 4:
+                    System.out.print("File name: ");
+                    String filename = scanner.nextLine().trim();
+                    reportGenerator.exportReport(filename);
+                    System.out.println("✓ Report saved to " + filename);
+                    break;
                 default:
                     System.out.println("⚠ Invalid choice!");
             }
         } catch (NumberFormatException e) {
             System.out.println("⚠ Invalid input!");
+        } catch (IOException e) {
+            System.out.println("⚠ Could not write report: " + e.getMessage());
+        }
+    }
+    
+    private void importTasks() {
+        System.out.println("\n=== IMPORT TASKS ===");
+        System.out.println("CSV files need a header row; other files are read as one JSON object per line.");
+        System.out.print("File name: ");
+        String filename = scanner.nextLine().trim();
+        
+        try {
+            TaskImporter.Result result = new TaskImporter(taskManager).importFile(Paths.get(filename));
+            System.out.println("\n✓ " + result);
+        } catch (IOException e) {
+            System.out.println("⚠ Could not read " + filename + ": " + e.getMessage());
         }
     }
     
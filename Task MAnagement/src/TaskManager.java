@@ -1,29 +1,267 @@
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.time.LocalDateTime;
 
 public class TaskManager {
-    private ArrayList<Task> allTasks;
-    private LinkedList<Task> recentlyCompleted;
-    private int maxRecentTasks = 10;
+    private TaskStore store;
+    private TaskChangeListener changeDispatcher;
+    private CopyOnWriteArrayList<TaskChangeListener> changeListeners;
+    private volatile RecentTaskRing recentlyCompleted;
+    private volatile int maxRecentTasks = 10;
+    private TextSearchIndex searchIndex;
+    private TrigramIndex titleIndex;
+    private TaskScheduleQueue scheduleQueue;
+    private DeadlineWheel deadlineWheel;
+    private volatile ParallelScanPolicy scanPolicy;
+    private volatile OutputSink output;
+    private TaskEventBus eventBus;
     
     public TaskManager() {
-        this.allTasks = new ArrayList<>();
-        this.recentlyCompleted = new LinkedList<>();
+        this(new IndexedTaskStore());
+    }
+    
+    public TaskManager(TaskStore store) {
+        this.store = store;
+        this.changeDispatcher = new ChangeDispatcher();
+        this.changeListeners = new CopyOnWriteArrayList<>();
+        this.recentlyCompleted = new RecentTaskRing(maxRecentTasks);
+        this.searchIndex = new TextSearchIndex();
+        this.titleIndex = new TrigramIndex();
+        this.scheduleQueue = new TaskScheduleQueue();
+        this.deadlineWheel = new DeadlineWheel();
+        this.scanPolicy = new ParallelScanPolicy();
+        this.output = OutputSink.CONSOLE;
+        this.changeListeners.add(searchIndex);
+        this.changeListeners.add(titleIndex);
+        this.changeListeners.add(scheduleQueue);
+        this.changeListeners.add(deadlineWheel);
+    }
+    
+    // Runs inside the task's lock: keeps the store's indexes in step, then forwards to registered listeners.
+    private class ChangeDispatcher implements TaskChangeListener {
+        @Override
+        public void onStatusChanged(Task task, TaskStatus oldStatus) {
+            store.onStatusChanged(task, oldStatus);
+            if (task.getStatus() == TaskStatus.COMPLETED) {
+                // A resize retires the ring while copying it; the task then goes into the new one.
+                while (!recentlyCompleted.record(task)) {
+                    Thread.onSpinWait();
+                }
+            }
+            for (TaskChangeListener listener : changeListeners) {
+                listener.onStatusChanged(task, oldStatus);
+            }
+        }
+        
+        @Override
+        public void onPriorityChanged(Task task, Priority oldPriority) {
+            store.onPriorityChanged(task, oldPriority);
+            for (TaskChangeListener listener : changeListeners) {
+                listener.onPriorityChanged(task, oldPriority);
+            }
+        }
+        
+        @Override
+        public void onDueDateChanged(Task task, LocalDateTime oldDueDate) {
+            store.onDueDateChanged(task, oldDueDate);
+            for (TaskChangeListener listener : changeListeners) {
+                listener.onDueDateChanged(task, oldDueDate);
+            }
+        }
+        
+        @Override
+        public void onTitleChanged(Task task, String oldTitle) {
+            store.onTitleChanged(task, oldTitle);
+            for (TaskChangeListener listener : changeListeners) {
+                listener.onTitleChanged(task, oldTitle);
+            }
+        }
+        
+        @Override
+        public void onItemAdded(ShoppingTask task, String item) {
+            for (TaskChangeListener listener : changeListeners) {
+                listener.onItemAdded(task, item);
+            }
+        }
+        
+        @Override
+        public void onItemRemoved(ShoppingTask task, String item) {
+            for (TaskChangeListener listener : changeListeners) {
+                listener.onItemRemoved(task, item);
+            }
+        }
+        
+        @Override
+        public void onActualCostChanged(ShoppingTask task, double oldCost) {
+            for (TaskChangeListener listener : changeListeners) {
+                listener.onActualCostChanged(task, oldCost);
+            }
+        }
+    }
+    
+    public void addChangeListener(TaskChangeListener listener) {
+        changeListeners.add(listener);
+    }
+    
+    public void removeChangeListener(TaskChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+    
+    // Created on first use, so managers nobody subscribes to publish nothing. The indexes, live statistics
+    // and persistence stay synchronous listeners on purpose: queries and counts must reflect a change as
+    // soon as the call returns, and a journaled change must not be acknowledged before it is appended.
+    // The bus carries work that may lag behind the writer, such as notifications and exports.
+    public synchronized TaskEventBus getEventBus() {
+        if (eventBus == null) {
+            eventBus = new TaskEventBus(line -> output.println(line));
+            changeListeners.add(eventBus);
+        }
+        return eventBus;
+    }
+    
+    // Confirmations and task listings go here; OutputSink.NONE keeps the engine off the console entirely.
+    public void setOutputSink(OutputSink output) {
+        this.output = output;
+    }
+    
+    public OutputSink getOutputSink() {
+        return output;
+    }
+    
+    public void addDeadlineListener(DeadlineListener listener) {
+        deadlineWheel.addListener(listener);
+    }
+    
+    public void removeDeadlineListener(DeadlineListener listener) {
+        deadlineWheel.removeListener(listener);
+    }
+    
+    // Fires any due-soon and overdue events that have come up since the last check.
+    public void checkDeadlines() {
+        deadlineWheel.advance();
     }
     
     public void addTask(Task task) {
-        allTasks.add(task);
-        System.out.println("Task added successfully! ID: " + task.getId());
+        restoreTask(task);
+        output.println("Task added successfully! ID: " + task.getId());
+    }
+    
+    // Adds a task without announcing it; used when rebuilding state from disk and for recurring occurrences.
+    void restoreTask(Task task) {
+        TaskEventBus.rejectHandlerThread();
+        synchronized (task) {
+            store.add(task);
+            task.setChangeListener(changeDispatcher);
+            for (TaskChangeListener listener : changeListeners) {
+                listener.onTaskAdded(task);
+            }
+        }
+    }
+    
+    // Adds a whole batch with one announcement per listener and one summary line. Listeners are
+    // independent, so a large batch is handed to all of them at once. Each task gets the change
+    // listener before it becomes findable, so the store's indexes follow any change made to it from
+    // then on; other threads should still leave the batch alone until this returns, as listeners
+    // could otherwise hear of such a change before the batch itself.
+    public void addAll(Collection<? extends Task> tasks) {
+        restoreTasks(tasks);
+        output.println(tasks.size() + " tasks added successfully!");
+    }
+    
+    void restoreTasks(Collection<? extends Task> tasks) {
+        TaskEventBus.rejectHandlerThread();
+        for (Task task : tasks) {
+            synchronized (task) {
+                task.setChangeListener(changeDispatcher);
+            }
+        }
+        store.addAll(tasks);
+        if (scanPolicy.shouldParallelize(tasks.size())) {
+            changeListeners.parallelStream().forEach(listener -> listener.onTasksAdded(tasks));
+        } else {
+            for (TaskChangeListener listener : changeListeners) {
+                listener.onTasksAdded(tasks);
+            }
+        }
     }
     
     public void removeTask(int id) throws TaskException {
-        Task task = findTaskById(id);
-        if (task == null) {
+        if (!discardTask(id)) {
             throw new TaskException("Task with ID " + id + " not found!");
         }
-        allTasks.remove(task);
-        System.out.println("Task removed successfully!");
+        output.println("Task removed successfully!");
+    }
+    
+    boolean discardTask(int id) {
+        TaskEventBus.rejectHandlerThread();
+        Task task = store.findById(id);
+        if (task == null) {
+            return false;
+        }
+        synchronized (task) {
+            return detachTask(task);
+        }
+    }
+    
+    // Caller holds the task's lock. Listeners are told before the task leaves the store, so a
+    // listener walking the store concurrently (see TaskStatistics.enableLiveMode) either finds the
+    // task or has already heard that it is gone.
+    private boolean detachTask(Task task) {
+        if (store.findById(task.getId()) != task) {
+            return false;
+        }
+        task.setChangeListener(null);
+        for (TaskChangeListener listener : changeListeners) {
+            listener.onTaskRemoved(task);
+        }
+        store.remove(task);
+        return true;
+    }
+    
+    // Moves completed and cancelled tasks out of the store into the archive; returns how many moved.
+    // The archive is forced to disk before any task is removed, so a crash can leave a task both
+    // archived and live but never neither; a live task the archive already holds is just removed.
+    public int archiveFinishedTasks(TaskArchive archive) throws IOException {
+        TaskEventBus.rejectHandlerThread();
+        ArrayList<Task> finished = store.filter(TaskStatus.COMPLETED);
+        finished.addAll(store.filter(TaskStatus.CANCELLED));
+        
+        ArrayList<Task> appended = new ArrayList<>(finished.size());
+        int archived = 0;
+        for (Task task : finished) {
+            synchronized (task) {
+                if (!task.getStatus().isComplete() || store.findById(task.getId()) != task) {
+                    continue;
+                }
+                if (!archive.contains(task.getId())) {
+                    archive.append(task);
+                    appended.add(task);
+                } else if (archive.holdsCopyOf(task)) {
+                    detachTask(task);
+                    archived++;
+                }
+                // Otherwise an older state of this task was archived before it was reopened; it stays live.
+            }
+        }
+        archive.force();
+        
+        for (Task task : appended) {
+            synchronized (task) {
+                // A task reopened while the archive was being forced stays live.
+                if (task.getStatus().isComplete() && store.findById(task.getId()) == task) {
+                    detachTask(task);
+                    archived++;
+                }
+            }
+        }
+        return archived;
     }
     
     public void completeTask(int id) throws TaskException {
@@ -32,8 +270,7 @@ public class TaskManager {
             throw new TaskException("Task with ID " + id + " not found!");
         }
         task.markComplete();
-        addToRecentlyCompleted(task);
-        System.out.println("Task marked as complete!");
+        output.println("Task marked as complete!");
     }
     
     public void updateTaskStatus(int id, TaskStatus newStatus) throws TaskException {
@@ -42,151 +279,271 @@ public class TaskManager {
             throw new TaskException("Task with ID " + id + " not found!");
         }
         task.updateStatus(newStatus);
-        if (newStatus == TaskStatus.COMPLETED) {
-            addToRecentlyCompleted(task);
-        }
-        System.out.println("Task status updated to: " + newStatus.getDisplayName());
+        output.println("Task status updated to: " + newStatus.getDisplayName());
     }
     
-    private void addToRecentlyCompleted(Task task) {
-        recentlyCompleted.addFirst(task);
-        while (recentlyCompleted.size() > maxRecentTasks) {
-            recentlyCompleted.removeLast();
+    public synchronized void setMaxRecentTasks(int maxRecentTasks) {
+        RecentTaskRing resized = new RecentTaskRing(maxRecentTasks);
+        RecentTaskRing current = recentlyCompleted;
+        current.retire();
+        ArrayList<Task> recent = current.snapshot();
+        for (int i = Math.min(recent.size(), maxRecentTasks) - 1; i >= 0; i--) {
+            resized.record(recent.get(i));
         }
+        this.maxRecentTasks = maxRecentTasks;
+        this.recentlyCompleted = resized;
+    }
+    
+    public int getMaxRecentTasks() {
+        return maxRecentTasks;
+    }
+    
+    public ArrayList<Task> getRecentlyCompleted() {
+        return recentlyCompleted.snapshot();
     }
     
     public Task findTaskById(int id) {
-        for (Task task : allTasks) {
-            if (task.getId() == id) {
-                return task;
-            }
-        }
-        return null;
+        return store.findById(id);
     }
     
+    // Case-insensitive substring match on titles, in ID order.
     public ArrayList<Task> findTasksByTitle(String searchTerm) {
-        ArrayList<Task> results = new ArrayList<>();
-        String lowerSearch = searchTerm.toLowerCase();
-        
-        for (Task task : allTasks) {
-            if (task.getTitle().toLowerCase().contains(lowerSearch)) {
+        return tasksWithIds(titleIndex.find(searchTerm));
+    }
+    
+    private ArrayList<Task> tasksWithIds(int[] ids) {
+        ArrayList<Task> results = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Task task = store.findById(id);
+            if (task != null) {
                 results.add(task);
             }
         }
         return results;
     }
     
-    public ArrayList<Task> filterByStatus(TaskStatus status) {
-        ArrayList<Task> filtered = new ArrayList<>();
-        for (Task task : allTasks) {
-            if (task.getStatus() == status) {
-                filtered.add(task);
-            }
+    // Open tasks to work on next: highest priority first, then earliest due date.
+    public ArrayList<Task> getNextTasks(int count) {
+        return scheduleQueue.top(count);
+    }
+    
+    // Word search over titles, descriptions, projects and shopping items, best matches first.
+    public ArrayList<Task> searchTasks(String query) {
+        return searchTasks(query, Integer.MAX_VALUE);
+    }
+    
+    public ArrayList<Task> searchTasks(String query, int limit) {
+        return tasksWithIds(searchIndex.search(query, limit));
+    }
+    
+    // Runs a query lazily: candidates come from the most selective index available, every other
+    // predicate is checked per candidate, and sort + limit keeps only the best few in a bounded heap.
+    // Large candidate sets are filtered in parallel when the scan policy allows it.
+    public Stream<Task> query(TaskQuery query) {
+        Stream<Task> results = candidates(query).filter(query::matches);
+        if (results.isParallel()) {
+            results = results.unordered();
+        }
+        Comparator<Task> order = query.getOrder();
+        int limit = query.getLimit();
+        if (order != null && limit < Integer.MAX_VALUE) {
+            return top(results, order, limit).stream();
+        } else if (order != null) {
+            return results.sorted(order);
+        } else if (limit < Integer.MAX_VALUE) {
+            return results.limit(limit);
         }
-        return filtered;
+        return results;
     }
     
-    public ArrayList<Task> filterByCategory(TaskCategory category) {
-        ArrayList<Task> filtered = new ArrayList<>();
-        for (Task task : allTasks) {
-            if (task.getCategory() == category) {
-                filtered.add(task);
+    private Stream<Task> candidates(TaskQuery query) {
+        if (query.getText() != null) {
+            int[] ids = searchIndex.search(query.getText());
+            return parallelIfLarge(Arrays.stream(ids).mapToObj(store::findById).filter(Objects::nonNull), ids.length);
+        }
+        
+        // The due-date index only holds open tasks, so it can drive only queries limited to them.
+        if (query.getDueBefore() != null && query.onlyOpenTasks()) {
+            Collection<Task> due = query.getDueAfter() == null
+                ? store.dueBefore(query.getDueBefore())
+                : store.dueBetween(query.getDueAfter(), query.getDueBefore());
+            long bound = estimateEnumCandidates(query);
+            if (hasAtMost(due, bound)) {
+                return parallelIfLarge(due.stream(), bound);
             }
         }
-        return filtered;
+        return parallelIfLarge(store.candidates(query), estimateEnumCandidates(query));
     }
     
-    public ArrayList<Task> filterByPriority(Priority priority) {
-        ArrayList<Task> filtered = new ArrayList<>();
-        for (Task task : allTasks) {
-            if (task.getPriority() == priority) {
-                filtered.add(task);
-            }
+    private Stream<Task> parallelIfLarge(Stream<Task> candidates, long estimatedSize) {
+        return scanPolicy.shouldParallelize(estimatedSize) ? candidates.parallel() : candidates;
+    }
+    
+    private long estimateEnumCandidates(TaskQuery query) {
+        long fewest = store.size();
+        if (query.getStatuses() != null) {
+            fewest = Math.min(fewest, query.getStatuses().stream().mapToLong(store::count).sum());
+        }
+        if (query.getCategories() != null) {
+            fewest = Math.min(fewest, query.getCategories().stream().mapToLong(store::count).sum());
+        }
+        if (query.getPriorities() != null) {
+            fewest = Math.min(fewest, query.getPriorities().stream().mapToLong(store::count).sum());
         }
-        return filtered;
+        return fewest;
     }
     
-    public ArrayList<Task> getOverdueTasks() {
-        ArrayList<Task> overdue = new ArrayList<>();
-        for (Task task : allTasks) {
-            if (task.isOverdue()) {
-                overdue.add(task);
+    // Counts a (possibly lazy) range view only as far as the bound.
+    private static boolean hasAtMost(Collection<Task> tasks, long bound) {
+        long seen = 0;
+        for (Task ignored : tasks) {
+            if (++seen > bound) {
+                return false;
             }
         }
-        return overdue;
+        return true;
     }
     
-    public ArrayList<Task> getUpcomingTasks(int days) {
-        ArrayList<Task> upcoming = new ArrayList<>();
-        LocalDateTime futureDate = LocalDateTime.now().plusDays(days);
-        
-        for (Task task : allTasks) {
-            if (!task.getStatus().isComplete() && task.getDueDate() != null) {
-                if (task.getDueDate().isBefore(futureDate) && task.getDueDate().isAfter(LocalDateTime.now())) {
-                    upcoming.add(task);
-                }
-            }
+    private static ArrayList<Task> top(Stream<Task> tasks, Comparator<Task> order, int limit) {
+        ArrayList<Task> best = new ArrayList<>();
+        if (limit == 0) {
+            return best;
         }
-        return upcoming;
+        // Max-heap on the order, so the worst of the current best sits on top and is evicted first.
+        // A parallel stream keeps one heap per split and merges them.
+        PriorityQueue<Task> heap = tasks.collect(() -> new PriorityQueue<>(Math.min(limit, 1024), order.reversed()),
+                                                 (partial, task) -> offer(partial, task, order, limit),
+                                                 (partial, other) -> other.forEach(task -> offer(partial, task, order, limit)));
+        best.addAll(heap);
+        best.sort(order);
+        return best;
+    }
+    
+    private static void offer(PriorityQueue<Task> heap, Task task, Comparator<Task> order, int limit) {
+        if (heap.size() < limit) {
+            heap.add(task);
+        } else if (order.compare(task, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(task);
+        }
+    }
+    
+    public ArrayList<Task> filterByStatus(TaskStatus status) {
+        return store.filter(status);
+    }
+    
+    public ArrayList<Task> filterByCategory(TaskCategory category) {
+        return store.filter(category);
+    }
+    
+    public ArrayList<Task> filterByPriority(Priority priority) {
+        return store.filter(priority);
+    }
+    
+    public ArrayList<Task> getOverdueTasks() {
+        return new ArrayList<>(overdueTasks(LocalDateTime.now()));
+    }
+    
+    public ArrayList<Task> getUpcomingTasks(int days) {
+        return new ArrayList<>(upcomingTasks(LocalDateTime.now(), days));
+    }
+    
+    // The store's own range views in due-date order, for callers that stream instead of copying.
+    Collection<Task> overdueTasks(LocalDateTime now) {
+        return store.dueBefore(now);
+    }
+    
+    Collection<Task> upcomingTasks(LocalDateTime now, int days) {
+        return store.dueBetween(now, now.plusDays(days));
     }
     
     public void listAllTasks() {
-        if (allTasks.isEmpty()) {
-            System.out.println("No tasks found.");
+        if (store.size() == 0) {
+            output.println("No tasks found.");
             return;
         }
         
-        System.out.println("\n=== All Tasks (" + allTasks.size() + " total) ===");
+        output.println("\n=== All Tasks (" + store.size() + " total) ===");
         int index = 1;
-        for (Task task : allTasks) {
-            System.out.println("\n" + index++ + ".");
-            task.displayDetails();
+        for (Task task : store) {
+            output.println("\n" + index++ + ".");
+            task.displayDetails(output);
         }
     }
     
     public void listTasks(ArrayList<Task> tasks, String title) {
         if (tasks.isEmpty()) {
-            System.out.println("No tasks found.");
+            output.println("No tasks found.");
             return;
         }
         
-        System.out.println("\n=== " + title + " (" + tasks.size() + " tasks) ===");
+        output.println("\n=== " + title + " (" + tasks.size() + " tasks) ===");
         int index = 1;
         for (Task task : tasks) {
-            System.out.println("\n" + index++ + ".");
-            task.displayDetails();
+            output.println("\n" + index++ + ".");
+            task.displayDetails(output);
         }
     }
     
     public void listRecentlyCompleted() {
-        if (recentlyCompleted.isEmpty()) {
-            System.out.println("No recently completed tasks.");
+        ArrayList<Task> recent = recentlyCompleted.snapshot();
+        if (recent.isEmpty()) {
+            output.println("No recently completed tasks.");
             return;
         }
         
-        System.out.println("\n=== Recently Completed Tasks ===");
+        output.println("\n=== Recently Completed Tasks ===");
         int index = 1;
-        for (Task task : recentlyCompleted) {
-            System.out.println("\n" + index++ + ".");
-            task.displayBasicInfo();
+        for (Task task : recent) {
+            output.println("\n" + index++ + ".");
+            task.displayBasicInfo(output);
         }
     }
     
     public int getTotalTaskCount() {
-        return allTasks.size();
+        return store.size();
     }
     
     public int getTaskCount(TaskStatus status) {
-        int count = 0;
-        for (Task task : allTasks) {
-            if (task.getStatus() == status) {
-                count++;
-            }
-        }
-        return count;
+        return store.count(status);
+    }
+    
+    public int getTaskCount(TaskCategory category) {
+        return store.count(category);
+    }
+    
+    public int getTaskCount(Priority priority) {
+        return store.count(priority);
+    }
+    
+    public StatisticsSnapshot takeStatisticsSnapshot() {
+        ParallelScanPolicy policy = scanPolicy;
+        int tasks = store.size();
+        boolean parallel = policy.shouldParallelize(tasks) && !policy.needsSequentialSample();
+        long start = System.nanoTime();
+        StatisticsSnapshot snapshot = store.takeSnapshot(LocalDateTime.now(), parallel);
+        policy.recordScan(tasks, System.nanoTime() - start, parallel);
+        return snapshot;
+    }
+    
+    public void setParallelScanPolicy(ParallelScanPolicy scanPolicy) {
+        this.scanPolicy = scanPolicy;
+    }
+    
+    public ParallelScanPolicy getParallelScanPolicy() {
+        return scanPolicy;
     }
     
     public ArrayList<Task> getAllTasks() {
-        return allTasks;
+        return store.asList();
+    }
+    
+    public Iterable<Task> getTasks() {
+        return store;
+    }
+    
+    // Whether getTasks() may be walked on one thread while others keep changing tasks.
+    public boolean hasThreadSafeStore() {
+        return store.isThreadSafe();
     }
 }
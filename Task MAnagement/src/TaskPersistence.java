@@ -0,0 +1,384 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Snapshot + journal storage in one directory. Generation N consists of snapshot-N.bin (the state at
+// the moment journal-N.log was started) plus journal-N.log. Restart loads the newest snapshot and
+// replays only the journals from its generation onwards; older files are deleted once a newer
+// snapshot is safely on disk.
+public class TaskPersistence implements TaskChangeListener, Closeable {
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int SNAPSHOT_MAGIC = 0x54534E50;
+    private static final int SNAPSHOT_VERSION = 1;
+    
+    private final Path directory;
+    private final TaskManager taskManager;
+    private final FsyncPolicy fsyncPolicy;
+    private final ReentrantReadWriteLock rotationLock;
+    private final AtomicBoolean snapshotInProgress;
+    private final ScheduledExecutorService snapshotWriter;
+    private TaskJournal journal;
+    private long generation;
+    
+    private TaskPersistence(Path directory, TaskManager taskManager, FsyncPolicy fsyncPolicy) {
+        this.directory = directory;
+        this.taskManager = taskManager;
+        this.fsyncPolicy = fsyncPolicy;
+        this.rotationLock = new ReentrantReadWriteLock();
+        this.snapshotInProgress = new AtomicBoolean();
+        this.snapshotWriter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public static TaskPersistence open(Path directory, TaskManager taskManager, FsyncPolicy fsyncPolicy) throws IOException {
+        Files.createDirectories(directory);
+        TaskPersistence persistence = new TaskPersistence(directory, taskManager, fsyncPolicy);
+        persistence.recover();
+        taskManager.addChangeListener(persistence);
+        return persistence;
+    }
+    
+    private void recover() throws IOException {
+        deleteFiles(TEMP_SUFFIX, Long.MAX_VALUE);
+        
+        long snapshotGeneration = -1;
+        for (long candidate : generations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            snapshotGeneration = candidate;
+        }
+        if (snapshotGeneration >= 0) {
+            loadSnapshot(snapshotPath(snapshotGeneration));
+        }
+        
+        generation = Math.max(snapshotGeneration, 0);
+        long validLength = -1;
+        for (long journalGeneration : generations(JOURNAL_PREFIX, JOURNAL_SUFFIX)) {
+            if (journalGeneration >= generation) {
+                validLength = TaskJournal.replay(journalPath(journalGeneration), taskManager);
+                generation = journalGeneration;
+            }
+        }
+        journal = TaskJournal.open(journalPath(generation), fsyncPolicy, validLength);
+    }
+    
+    private void loadSnapshot(Path file) throws IOException {
+        CheckedInputStream checked = new CheckedInputStream(
+            new BufferedInputStream(Files.newInputStream(file), 1024 * 1024), new CRC32());
+        try (DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Not a task snapshot: " + file);
+            }
+            in.readLong();
+            ArrayList<Task> tasks = new ArrayList<>();
+            while (in.readBoolean()) {
+                tasks.add(TaskRecordCodec.readTask(in));
+            }
+            int expectedCount = in.readInt();
+            long actualChecksum = checked.getChecksum().getValue();
+            if (expectedCount != tasks.size() || in.readLong() != actualChecksum) {
+                throw new IOException("Task snapshot is corrupt: " + file);
+            }
+            // One batch, so each listener indexes the whole snapshot in a single call.
+            taskManager.restoreTasks(tasks);
+        }
+    }
+    
+    // Starts a new journal generation, then writes every task to a snapshot of that generation. Writers
+    // are held up only while the journal is swapped; changes made while tasks are being written land in
+    // the new journal and are simply re-applied on top of the snapshot at restart.
+    public void snapshot() throws IOException {
+        if (!snapshotInProgress.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long snapshotGeneration = rotateJournal();
+            Path temp = directory.resolve(SNAPSHOT_PREFIX + snapshotGeneration + SNAPSHOT_SUFFIX + TEMP_SUFFIX);
+            writeSnapshot(temp, snapshotGeneration);
+            Files.move(temp, snapshotPath(snapshotGeneration), StandardCopyOption.ATOMIC_MOVE,
+                       StandardCopyOption.REPLACE_EXISTING);
+            deleteFiles(SNAPSHOT_SUFFIX, snapshotGeneration);
+            deleteFiles(JOURNAL_SUFFIX, snapshotGeneration);
+        } finally {
+            snapshotInProgress.set(false);
+        }
+    }
+    
+    public Future<?> snapshotInBackground() {
+        requireThreadSafeStore();
+        return snapshotWriter.submit(() -> {
+            snapshot();
+            return null;
+        });
+    }
+    
+    // Snapshots on a fixed schedule, skipping rounds where the journal is still small.
+    public void startPeriodicSnapshots(long interval, TimeUnit unit, long minimumJournalBytes) {
+        requireThreadSafeStore();
+        snapshotWriter.scheduleWithFixedDelay(() -> {
+            try {
+                if (journalSize() >= minimumJournalBytes) {
+                    snapshot();
+                }
+            } catch (IOException | RuntimeException e) {
+                // Reported rather than thrown: a throwing task would silently cancel the schedule.
+                taskManager.getOutputSink().println("⚠ Task snapshot failed: " + e.getMessage());
+            }
+        }, interval, interval, unit);
+    }
+    
+    // The snapshot writer walks every task while other threads keep changing them, which only a
+    // thread-safe store (ConcurrentTaskStore) supports; with any other store call snapshot() from the
+    // thread that makes the changes.
+    private void requireThreadSafeStore() {
+        if (!taskManager.hasThreadSafeStore()) {
+            throw new IllegalStateException("Background snapshots need a thread-safe task store");
+        }
+    }
+    
+    private long rotateJournal() throws IOException {
+        rotationLock.writeLock().lock();
+        try {
+            TaskJournal next = TaskJournal.open(journalPath(generation + 1), fsyncPolicy, -1);
+            journal.close();
+            journal = next;
+            generation++;
+            return generation;
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+    }
+    
+    private void writeSnapshot(Path file, long snapshotGeneration) throws IOException {
+        try (FileOutputStream fileOut = new FileOutputStream(file.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(fileOut, 1024 * 1024), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(snapshotGeneration);
+            int count = 0;
+            for (Task task : taskManager.getTasks()) {
+                synchronized (task) {
+                    out.writeBoolean(true);
+                    TaskRecordCodec.writeTask(out, task);
+                }
+                count++;
+            }
+            out.writeBoolean(false);
+            out.writeInt(count);
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            fileOut.getFD().sync();
+        }
+    }
+    
+    private ArrayList<Long> generations(String prefix, String suffix) throws IOException {
+        ArrayList<Long> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    found.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of ours.
+                }
+            }
+        }
+        Collections.sort(found);
+        return found;
+    }
+    
+    private void deleteFiles(String suffix, long belowGeneration) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + suffix)) {
+            for (Path file : files) {
+                if (generationOf(file) < belowGeneration) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+    
+    private static long generationOf(Path file) {
+        String name = file.getFileName().toString();
+        int start = name.indexOf('-') + 1;
+        int end = name.indexOf('.');
+        try {
+            return Long.parseLong(name.substring(start, end));
+        } catch (RuntimeException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+    
+    private Path journalPath(long journalGeneration) {
+        return directory.resolve(JOURNAL_PREFIX + journalGeneration + JOURNAL_SUFFIX);
+    }
+    
+    private Path snapshotPath(long snapshotGeneration) {
+        return directory.resolve(SNAPSHOT_PREFIX + snapshotGeneration + SNAPSHOT_SUFFIX);
+    }
+    
+    public long journalSize() throws IOException {
+        rotationLock.readLock().lock();
+        try {
+            return journal.size();
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+    
+    public long getGeneration() {
+        return generation;
+    }
+    
+    public void sync() throws IOException {
+        rotationLock.readLock().lock();
+        try {
+            journal.sync();
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void onTaskAdded(Task task) {
+        rotationLock.readLock().lock();
+        try {
+            journal.onTaskAdded(task);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void onTasksAdded(Collection<? extends Task> tasks) {
+        rotationLock.readLock().lock();
+        try {
+            journal.onTasksAdded(tasks);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void onTaskRemoved(Task task) {
+        rotationLock.readLock().lock();
+        try {
+            journal.onTaskRemoved(task);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void onStatusChanged(Task task, TaskStatus oldStatus) {
+        rotationLock.readLock().lock();
+        try {
+            journal.onStatusChanged(task, oldStatus);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void onPriorityChanged(Task task, Priority oldPriority) {
+        rotationLock.readLock().lock();
+        try {
+            journal.onPriorityChanged(task, oldPriority);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void onDueDateChanged(Task task, LocalDateTime oldDueDate) {
+        rotationLock.readLock().lock();
+        try {
+            journal.onDueDateChanged(task, oldDueDate);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void onTitleChanged(Task task, String oldTitle) {
+        rotationLock.readLock().lock();
+        try {
+            journal.onTitleChanged(task, oldTitle);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void onItemAdded(ShoppingTask task, String item) {
+        rotationLock.readLock().lock();
+        try {
+            journal.onItemAdded(task, item);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void onItemRemoved(ShoppingTask task, String item) {
+        rotationLock.readLock().lock();
+        try {
+            journal.onItemRemoved(task, item);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void onActualCostChanged(ShoppingTask task, double oldCost) {
+        rotationLock.readLock().lock();
+        try {
+            journal.onActualCostChanged(task, oldCost);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        taskManager.removeChangeListener(this);
+        snapshotWriter.shutdown();
+        try {
+            snapshotWriter.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rotationLock.writeLock().lock();
+        try {
+            journal.close();
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+    }
+}
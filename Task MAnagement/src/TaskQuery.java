@@ -0,0 +1,179 @@
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+
+// Combinable task filter, run through TaskManager.query. Each call narrows the query further; a
+// predicate that is never set matches everything. TaskManager picks the most selective index to
+// produce candidates and checks the remaining predicates on those alone.
+public class TaskQuery {
+    public static final Comparator<Task> BY_DUE_DATE =
+        Comparator.comparing(Task::getDueDate, Comparator.nullsLast(Comparator.naturalOrder()))
+                  .thenComparingInt(Task::getId);
+    public static final Comparator<Task> BY_PRIORITY =
+        Comparator.comparing(Task::getPriority).reversed().thenComparing(BY_DUE_DATE);
+    
+    private EnumSet<TaskStatus> statuses;
+    private EnumSet<TaskCategory> categories;
+    private EnumSet<Priority> priorities;
+    private LocalDateTime dueAfter;
+    private LocalDateTime dueBefore;
+    private String assignee;
+    private String text;
+    private Comparator<Task> order;
+    private int limit = Integer.MAX_VALUE;
+    
+    public TaskQuery withStatus(TaskStatus... values) {
+        statuses = narrow(statuses, EnumSet.noneOf(TaskStatus.class), values);
+        return this;
+    }
+    
+    public TaskQuery open() {
+        EnumSet<TaskStatus> open = EnumSet.noneOf(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            if (!status.isComplete()) {
+                open.add(status);
+            }
+        }
+        return withStatus(open.toArray(new TaskStatus[0]));
+    }
+    
+    public TaskQuery inCategory(TaskCategory... values) {
+        categories = narrow(categories, EnumSet.noneOf(TaskCategory.class), values);
+        return this;
+    }
+    
+    public TaskQuery withPriority(Priority... values) {
+        priorities = narrow(priorities, EnumSet.noneOf(Priority.class), values);
+        return this;
+    }
+    
+    public TaskQuery urgent() {
+        return withPriority(Arrays.stream(Priority.values()).filter(Priority::isUrgent).toArray(Priority[]::new));
+    }
+    
+    // Exclusive on both ends, like TaskManager.getUpcomingTasks; tasks without a due date never match.
+    public TaskQuery dueBetween(LocalDateTime after, LocalDateTime before) {
+        if (after != null && (dueAfter == null || after.isAfter(dueAfter))) {
+            dueAfter = after;
+        }
+        if (before != null && (dueBefore == null || before.isBefore(dueBefore))) {
+            dueBefore = before;
+        }
+        return this;
+    }
+    
+    public TaskQuery dueWithinDays(int days) {
+        LocalDateTime now = LocalDateTime.now();
+        return dueBetween(now, now.plusDays(days));
+    }
+    
+    public TaskQuery assignedTo(String name) {
+        this.assignee = name;
+        return this;
+    }
+    
+    // Words that must all appear in the title, description, project or items (see searchTasks).
+    public TaskQuery matching(String text) {
+        this.text = text;
+        return this;
+    }
+    
+    public TaskQuery sortBy(Comparator<Task> order) {
+        this.order = order;
+        return this;
+    }
+    
+    public TaskQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+    
+    private static <E extends Enum<E>> EnumSet<E> narrow(EnumSet<E> current, EnumSet<E> empty, E[] values) {
+        for (E value : values) {
+            empty.add(value);
+        }
+        if (current != null) {
+            empty.retainAll(current);
+        }
+        return empty;
+    }
+    
+    // Checks every predicate except the text words, which only the search index can answer.
+    public boolean matches(Task task) {
+        if (statuses != null && !statuses.contains(task.getStatus())) {
+            return false;
+        }
+        if (categories != null && !categories.contains(task.getCategory())) {
+            return false;
+        }
+        if (priorities != null && !priorities.contains(task.getPriority())) {
+            return false;
+        }
+        if (hasDueRange()) {
+            LocalDateTime dueDate = task.getDueDate();
+            if (dueDate == null || (dueAfter != null && !dueDate.isAfter(dueAfter))
+                    || (dueBefore != null && !dueDate.isBefore(dueBefore))) {
+                return false;
+            }
+        }
+        if (assignee != null) {
+            if (!(task instanceof WorkTask) || !assignee.equalsIgnoreCase(((WorkTask) task).getAssignedTo())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    EnumSet<TaskStatus> getStatuses() {
+        return statuses;
+    }
+    
+    EnumSet<TaskCategory> getCategories() {
+        return categories;
+    }
+    
+    EnumSet<Priority> getPriorities() {
+        return priorities;
+    }
+    
+    boolean hasDueRange() {
+        return dueAfter != null || dueBefore != null;
+    }
+    
+    // True when every status the query allows is an open one, so the due-date index covers it.
+    boolean onlyOpenTasks() {
+        if (statuses == null) {
+            return false;
+        }
+        for (TaskStatus status : statuses) {
+            if (status.isComplete()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    LocalDateTime getDueAfter() {
+        return dueAfter;
+    }
+    
+    LocalDateTime getDueBefore() {
+        return dueBefore;
+    }
+    
+    String getText() {
+        return text;
+    }
+    
+    Comparator<Task> getOrder() {
+        return order;
+    }
+    
+    int getLimit() {
+        return limit;
+    }
+}
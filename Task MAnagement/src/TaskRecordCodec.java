@@ -0,0 +1,159 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+
+// Compact binary form of a task and its fields, shared by everything that writes tasks to disk.
+public final class TaskRecordCodec {
+    private static final byte WORK = 1;
+    private static final byte PERSONAL = 2;
+    private static final byte SHOPPING = 3;
+    // A personal task materialized from a recurring one; its details end with the series ID.
+    private static final byte PERSONAL_OCCURRENCE = 4;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    
+    private TaskRecordCodec() {
+    }
+    
+    public static byte typeCode(Task task) throws IOException {
+        if (task instanceof WorkTask) {
+            return WORK;
+        } else if (task instanceof PersonalTask) {
+            return ((PersonalTask) task).getSeriesId() != 0 ? PERSONAL_OCCURRENCE : PERSONAL;
+        } else if (task instanceof ShoppingTask) {
+            return SHOPPING;
+        }
+        throw new IOException("Unsupported task type: " + task.getTaskType());
+    }
+    
+    public static void writeTask(DataOutput out, Task task) throws IOException {
+        out.writeByte(typeCode(task));
+        out.writeInt(task.getId());
+        writeString(out, task.getTitle());
+        writeString(out, task.getDescription());
+        out.writeByte(task.getPriority().ordinal());
+        out.writeByte(task.getStatus().ordinal());
+        writeDate(out, task.getCreatedDate());
+        writeDate(out, task.getDueDate());
+        writeDate(out, task.getCompletedDate());
+        writeDetails(out, task);
+    }
+    
+    // Writes only the fields specific to the task's subclass.
+    public static void writeDetails(DataOutput out, Task task) throws IOException {
+        if (task instanceof WorkTask) {
+            WorkTask work = (WorkTask) task;
+            writeString(out, work.getProject());
+            writeString(out, work.getAssignedTo());
+            out.writeInt(work.getEstimatedHours());
+        } else if (task instanceof PersonalTask) {
+            PersonalTask personal = (PersonalTask) task;
+            writeString(out, personal.getLocation());
+            out.writeBoolean(personal.isRecurring());
+            out.writeInt(personal.getRecurDays());
+            if (personal.getSeriesId() != 0) {
+                out.writeInt(personal.getSeriesId());
+            }
+        } else if (task instanceof ShoppingTask) {
+            ShoppingTask shopping = (ShoppingTask) task;
+            ArrayList<String> items = shopping.getItems();
+            out.writeInt(items.size());
+            for (String item : items) {
+                writeString(out, item);
+            }
+            out.writeDouble(shopping.getEstimatedBudget());
+            out.writeDouble(shopping.getActualCost());
+            writeString(out, shopping.getStore());
+        } else {
+            throw new IOException("Unsupported task type: " + task.getTaskType());
+        }
+    }
+    
+    public static Task readTask(DataInput in) throws IOException {
+        byte type = in.readByte();
+        int id = in.readInt();
+        String title = readString(in);
+        String description = readString(in);
+        Priority priority = readEnum(in, Priority.values());
+        TaskStatus status = readEnum(in, TaskStatus.values());
+        LocalDateTime createdDate = readDate(in);
+        LocalDateTime dueDate = readDate(in);
+        LocalDateTime completedDate = readDate(in);
+        return readDetails(in, type, id, title, description, priority, status, createdDate, dueDate, completedDate);
+    }
+    
+    // Rebuilds a task from its common fields plus the subclass fields written by writeDetails.
+    public static Task readDetails(DataInput in, byte type, int id, String title, String description,
+                                   Priority priority, TaskStatus status, LocalDateTime createdDate,
+                                   LocalDateTime dueDate, LocalDateTime completedDate) throws IOException {
+        switch (type) {
+            case WORK:
+                return new WorkTask(id, title, description, priority, status, createdDate, dueDate, completedDate,
+                                    readString(in), readString(in), in.readInt());
+            case PERSONAL:
+                return new PersonalTask(id, title, description, priority, status, createdDate, dueDate, completedDate,
+                                        readString(in), in.readBoolean(), in.readInt());
+            case PERSONAL_OCCURRENCE:
+                return new PersonalTask(id, title, description, priority, status, createdDate, dueDate, completedDate,
+                                        readString(in), in.readBoolean(), in.readInt(), in.readInt());
+            case SHOPPING:
+                int itemCount = in.readInt();
+                ArrayList<String> items = new ArrayList<>(itemCount);
+                for (int i = 0; i < itemCount; i++) {
+                    items.add(readString(in));
+                }
+                return new ShoppingTask(id, title, description, priority, status, createdDate, dueDate, completedDate,
+                                        items, in.readDouble(), in.readDouble(), readString(in));
+            default:
+                throw new IOException("Unknown task type code: " + type);
+        }
+    }
+    
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    public static void writeDate(DataOutput out, LocalDateTime date) throws IOException {
+        if (date == null) {
+            out.writeLong(NO_DATE);
+            return;
+        }
+        out.writeLong(date.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(date.getNano());
+    }
+    
+    public static LocalDateTime readDate(DataInput in) throws IOException {
+        long epochSecond = in.readLong();
+        if (epochSecond == NO_DATE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(epochSecond, in.readInt(), ZoneOffset.UTC);
+    }
+    
+    public static <E extends Enum<E>> E readEnum(DataInput in, E[] values) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= values.length) {
+            throw new IOException("Invalid enum ordinal: " + ordinal);
+        }
+        return values[ordinal];
+    }
+}
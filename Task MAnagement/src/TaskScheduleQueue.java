@@ -0,0 +1,233 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Indexed binary max-heap of open tasks: highest priority level first, then earliest due date (tasks
+// without one last), then lowest ID. Each task's heap position is tracked by ID, so a priority or
+// due-date change re-sifts just that entry in O(log n), and the best k come out in O(k log k)
+// without disturbing the heap.
+public class TaskScheduleQueue implements TaskChangeListener {
+    private Task[] tasks;
+    private int[] levels;
+    private long[] dueDates;
+    private final TaskIdIndex positionsById;
+    private int size;
+    
+    public TaskScheduleQueue() {
+        this.tasks = new Task[16];
+        this.levels = new int[16];
+        this.dueDates = new long[16];
+        this.positionsById = new TaskIdIndex();
+    }
+    
+    private static long dueKey(Task task) {
+        long due = task.getDueMicros();
+        return due == Task.NO_DATE ? Long.MAX_VALUE : due;
+    }
+    
+    // True when the entry at position a should be worked on before the one at b.
+    private boolean before(int a, int b) {
+        if (levels[a] != levels[b]) {
+            return levels[a] > levels[b];
+        }
+        if (dueDates[a] != dueDates[b]) {
+            return dueDates[a] < dueDates[b];
+        }
+        return tasks[a].getId() < tasks[b].getId();
+    }
+    
+    public synchronized void add(Task task) {
+        if (task.getStatus().isComplete() || positionsById.containsKey(task.getId())) {
+            return;
+        }
+        if (size == tasks.length) {
+            tasks = Arrays.copyOf(tasks, size * 2);
+            levels = Arrays.copyOf(levels, size * 2);
+            dueDates = Arrays.copyOf(dueDates, size * 2);
+        }
+        int position = size++;
+        tasks[position] = task;
+        levels[position] = task.getPriority().getLevel();
+        dueDates[position] = dueKey(task);
+        positionsById.put(task.getId(), position);
+        siftUp(position);
+    }
+    
+    public synchronized void remove(Task task) {
+        int position = positionsById.remove(task.getId());
+        if (position < 0) {
+            return;
+        }
+        int last = --size;
+        if (position != last) {
+            moveEntry(last, position);
+            update(position);
+        }
+        tasks[last] = null;
+    }
+    
+    // Re-reads the task's priority and due date and restores heap order around it.
+    private synchronized void refresh(Task task) {
+        int position = positionsById.get(task.getId());
+        if (position < 0) {
+            return;
+        }
+        levels[position] = task.getPriority().getLevel();
+        dueDates[position] = dueKey(task);
+        update(position);
+    }
+    
+    private void update(int position) {
+        if (position > 0 && before(position, (position - 1) / 2)) {
+            siftUp(position);
+        } else {
+            siftDown(position);
+        }
+    }
+    
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!before(position, parent)) {
+                break;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+    
+    private void siftDown(int position) {
+        while (true) {
+            int best = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < size && before(left, best)) {
+                best = left;
+            }
+            if (right < size && before(right, best)) {
+                best = right;
+            }
+            if (best == position) {
+                return;
+            }
+            swap(position, best);
+            position = best;
+        }
+    }
+    
+    private void swap(int a, int b) {
+        Task task = tasks[a];
+        int level = levels[a];
+        long due = dueDates[a];
+        moveEntry(b, a);
+        tasks[b] = task;
+        levels[b] = level;
+        dueDates[b] = due;
+        positionsById.put(task.getId(), b);
+    }
+    
+    private void moveEntry(int from, int to) {
+        tasks[to] = tasks[from];
+        levels[to] = levels[from];
+        dueDates[to] = dueDates[from];
+        positionsById.put(tasks[to].getId(), to);
+    }
+    
+    @Override
+    public void onTaskAdded(Task task) {
+        add(task);
+    }
+    
+    @Override
+    public void onTaskRemoved(Task task) {
+        remove(task);
+    }
+    
+    @Override
+    public void onStatusChanged(Task task, TaskStatus oldStatus) {
+        if (task.getStatus().isComplete()) {
+            remove(task);
+        } else {
+            add(task);
+        }
+    }
+    
+    @Override
+    public void onPriorityChanged(Task task, Priority oldPriority) {
+        refresh(task);
+    }
+    
+    @Override
+    public void onDueDateChanged(Task task, LocalDateTime oldDueDate) {
+        refresh(task);
+    }
+    
+    public synchronized Task peek() {
+        return size == 0 ? null : tasks[0];
+    }
+    
+    // Walks the heap best-first with a small frontier heap of positions; the main heap is untouched.
+    public synchronized ArrayList<Task> top(int k) {
+        k = Math.min(k, size);
+        ArrayList<Task> best = new ArrayList<>(Math.max(k, 0));
+        if (k <= 0) {
+            return best;
+        }
+        int[] frontier = new int[(int) Math.min(size, 2L * k + 1)];
+        int frontierSize = 0;
+        frontier[frontierSize++] = 0;
+        while (frontierSize > 0 && best.size() < k) {
+            int position = frontier[0];
+            frontier[0] = frontier[--frontierSize];
+            siftDownFrontier(frontier, frontierSize, 0);
+            best.add(tasks[position]);
+            
+            for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+                if (frontierSize == frontier.length) {
+                    frontier = Arrays.copyOf(frontier, frontierSize * 2);
+                }
+                frontier[frontierSize] = child;
+                siftUpFrontier(frontier, frontierSize++);
+            }
+        }
+        return best;
+    }
+    
+    private void siftUpFrontier(int[] frontier, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!before(frontier[index], frontier[parent])) {
+                break;
+            }
+            int position = frontier[index];
+            frontier[index] = frontier[parent];
+            frontier[parent] = position;
+            index = parent;
+        }
+    }
+    
+    private void siftDownFrontier(int[] frontier, int frontierSize, int index) {
+        while (true) {
+            int best = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < frontierSize && before(frontier[left], frontier[best])) {
+                best = left;
+            }
+            if (right < frontierSize && before(frontier[right], frontier[best])) {
+                best = right;
+            }
+            if (best == index) {
+                return;
+            }
+            int position = frontier[index];
+            frontier[index] = frontier[best];
+            frontier[best] = position;
+            index = best;
+        }
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+}
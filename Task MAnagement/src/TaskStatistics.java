@@ -1,22 +1,93 @@
-import java.util.ArrayList;
+import java.time.LocalDateTime;
 
 public class TaskStatistics {
     private TaskManager taskManager;
+    private volatile LiveStatistics liveStatistics;
+    private TaskArchive archive;
     
     public TaskStatistics(TaskManager taskManager) {
         this.taskManager = taskManager;
     }
     
+    // Listens before counting the existing tasks, and counts each one under its lock, so changes
+    // made by other threads while this runs are neither lost nor counted twice.
+    public synchronized void enableLiveMode() {
+        if (liveStatistics != null) {
+            return;
+        }
+        LiveStatistics live = new LiveStatistics();
+        live.beginSeeding();
+        taskManager.addChangeListener(live);
+        for (Task task : taskManager.getTasks()) {
+            synchronized (task) {
+                if (taskManager.findTaskById(task.getId()) == task) {
+                    live.seed(task);
+                }
+            }
+        }
+        live.endSeeding();
+        liveStatistics = live;
+    }
+    
+    public synchronized void disableLiveMode() {
+        if (liveStatistics != null) {
+            taskManager.removeChangeListener(liveStatistics);
+            liveStatistics = null;
+        }
+    }
+    
+    public boolean isLiveMode() {
+        return liveStatistics != null;
+    }
+    
+    // Archived tasks are counted from the archive's columns alongside the live ones.
+    public void setArchive(TaskArchive archive) {
+        this.archive = archive;
+    }
+    
+    public TaskArchive getArchive() {
+        return archive;
+    }
+    
+    public StatisticsSnapshot takeSnapshot() {
+        if (liveStatistics != null) {
+            StatisticsSnapshot live = liveStatistics.toSnapshot(countOverdueTasks());
+            return archive == null ? live : live.combine(archive.takeSnapshot());
+        }
+        StatisticsSnapshot current = taskManager.takeStatisticsSnapshot();
+        return archive == null ? current : current.combine(archive.takeSnapshot());
+    }
+    
     public int calculateTotal() {
-        return taskManager.getTotalTaskCount();
+        int archived = archive == null ? 0 : archive.size();
+        if (liveStatistics != null) {
+            return liveStatistics.getTotal() + archived;
+        }
+        return taskManager.getTotalTaskCount() + archived;
     }
     
     public int calculateTotal(TaskStatus status) {
-        return taskManager.getTaskCount(status);
+        int archived = archive == null ? 0 : archive.count(status);
+        if (liveStatistics != null) {
+            return liveStatistics.getCount(status) + archived;
+        }
+        return taskManager.getTaskCount(status) + archived;
     }
     
     public int calculateTotal(TaskCategory category) {
-        return taskManager.filterByCategory(category).size();
+        int archived = archive == null ? 0 : archive.count(category);
+        if (liveStatistics != null) {
+            return liveStatistics.getCount(category) + archived;
+        }
+        return taskManager.getTaskCount(category) + archived;
+    }
+    
+    public int calculateTotal(Priority priority) {
+        int archived = archive == null ? 0 : archive.count(priority);
+        if (liveStatistics != null) {
+            return liveStatistics.getCount(priority) + archived;
+        }
+        return taskManager.getTaskCount(priority) + archived;
     }
     
     public double calculateCompletionRate() {
@@ -29,44 +100,26 @@ public class TaskStatistics {
     }
     
     public double calculateAverageCompletionTime() {
-        ArrayList<Task> allTasks = taskManager.getAllTasks();
-        double totalHours = 0;
-        int completedCount = 0;
-        
-        for (Task task : allTasks) {
-            if (task.getStatus() == TaskStatus.COMPLETED) {
-                double hours = task.calculateCompletionTime();
-                if (hours > 0) {
-                    totalHours += hours;
-                    completedCount++;
-                }
-            }
+        if (liveStatistics != null && archive == null) {
+            return liveStatistics.getAverageCompletionTime();
         }
-        
-        if (completedCount == 0) {
-            return 0.0;
-        }
-        return totalHours / completedCount;
+        return takeSnapshot().getAverageCompletionTime();
     }
     
     public Priority getMostCommonPriority() {
-        int[] priorityCounts = new int[Priority.values().length];
-        
-        for (Task task : taskManager.getAllTasks()) {
-            priorityCounts[task.getPriority().ordinal()]++;
-        }
-        
+        Priority[] priorities = Priority.values();
         int maxIndex = 0;
-        int maxCount = priorityCounts[0];
+        int maxCount = calculateTotal(priorities[0]);
         
-        for (int i = 1; i < priorityCounts.length; i++) {
-            if (priorityCounts[i] > maxCount) {
-                maxCount = priorityCounts[i];
+        for (int i = 1; i < priorities.length; i++) {
+            int count = calculateTotal(priorities[i]);
+            if (count > maxCount) {
+                maxCount = count;
                 maxIndex = i;
             }
         }
         
-        return Priority.values()[maxIndex];
+        return priorities[maxIndex];
     }
     
     public TaskCategory getMostActiveCategory() {
@@ -84,66 +137,65 @@ public class TaskStatistics {
         return mostActive;
     }
     
+    // Sizes the due-date index's own view, so nothing is copied just to be counted.
     public int countOverdueTasks() {
-        return taskManager.getOverdueTasks().size();
+        return taskManager.overdueTasks(LocalDateTime.now()).size();
     }
     
     public int countHighPriorityTasks() {
-        int count = 0;
-        for (Task task : taskManager.getAllTasks()) {
-            if (task.getPriority().isUrgent() && !task.getStatus().isComplete()) {
-                count++;
-            }
+        if (liveStatistics != null) {
+            return liveStatistics.getUrgentCount();
         }
-        return count;
+        return takeSnapshot().getUrgentCount();
     }
     
     public void displayStatistics() {
-        System.out.println("\n========================================");
-        System.out.println("         TASK STATISTICS");
-        System.out.println("========================================");
+        StatisticsSnapshot stats = takeSnapshot();
+        OutputSink out = taskManager.getOutputSink();
         
-        System.out.println("\n--- Overall Statistics ---");
-        System.out.println("Total tasks: " + calculateTotal());
-        System.out.println("Completed: " + calculateTotal(TaskStatus.COMPLETED));
-        System.out.println("In Progress: " + calculateTotal(TaskStatus.IN_PROGRESS));
-        System.out.println("To Do: " + calculateTotal(TaskStatus.TODO));
-        System.out.println("Blocked: " + calculateTotal(TaskStatus.BLOCKED));
-        System.out.println("Cancelled: " + calculateTotal(TaskStatus.CANCELLED));
+        out.println("\n========================================");
+        out.println("         TASK STATISTICS");
+        out.println("========================================");
         
-        double completionRate = calculateCompletionRate();
-        System.out.println("\nCompletion rate: " + String.format("%.1f", completionRate) + "%");
+        out.println("\n--- Overall Statistics ---");
+        out.println("Total tasks: " + stats.getTotal());
+        out.println("Completed: " + stats.getCount(TaskStatus.COMPLETED));
+        out.println("In Progress: " + stats.getCount(TaskStatus.IN_PROGRESS));
+        out.println("To Do: " + stats.getCount(TaskStatus.TODO));
+        out.println("Blocked: " + stats.getCount(TaskStatus.BLOCKED));
+        out.println("Cancelled: " + stats.getCount(TaskStatus.CANCELLED));
         
-        double avgTime = calculateAverageCompletionTime();
+        double completionRate = stats.getCompletionRate();
+        out.println("\nCompletion rate: " + String.format("%.1f", completionRate) + "%");
+        
+        double avgTime = stats.getAverageCompletionTime();
         if (avgTime > 0) {
-            System.out.println("Average completion time: " + String.format("%.1f", avgTime) + " hours");
+            out.println("Average completion time: " + String.format("%.1f", avgTime) + " hours");
         }
         
-        System.out.println("\n--- Priority Breakdown ---");
+        out.println("\n--- Priority Breakdown ---");
         for (Priority priority : Priority.values()) {
-            int count = taskManager.filterByPriority(priority).size();
-            System.out.println(priority + ": " + count);
+            out.println(priority + ": " + stats.getCount(priority));
         }
         
-        System.out.println("\n--- Category Breakdown ---");
+        out.println("\n--- Category Breakdown ---");
         for (TaskCategory category : TaskCategory.values()) {
-            int count = calculateTotal(category);
-            System.out.println(category + ": " + count);
+            out.println(category + ": " + stats.getCount(category));
         }
         
-        System.out.println("\n--- Alerts ---");
-        int overdueCount = countOverdueTasks();
+        out.println("\n--- Alerts ---");
+        int overdueCount = stats.getOverdueCount();
         if (overdueCount > 0) {
-            System.out.println("⚠ OVERDUE tasks: " + overdueCount);
+            out.println("⚠ OVERDUE tasks: " + overdueCount);
         }
         
-        int urgentCount = countHighPriorityTasks();
+        int urgentCount = stats.getUrgentCount();
         if (urgentCount > 0) {
-            System.out.println("⚠ High priority pending: " + urgentCount);
+            out.println("⚠ High priority pending: " + urgentCount);
         }
         
         if (overdueCount == 0 && urgentCount == 0) {
-            System.out.println("✓ No urgent issues!");
+            out.println("✓ No urgent issues!");
         }
     }
 }
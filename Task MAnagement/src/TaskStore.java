@@ -0,0 +1,95 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Storage and indexes behind TaskManager. TaskManager serializes changes to any one task by
+// locking on it, so implementations only have to cope with different tasks changing at once.
+public interface TaskStore extends TaskChangeListener, Iterable<Task> {
+    void add(Task task);
+    
+    boolean remove(Task task);
+    
+    default void addAll(Collection<? extends Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+    
+    Task findById(int id);
+    
+    int size();
+    
+    int count(TaskStatus status);
+    
+    int count(TaskCategory category);
+    
+    int count(Priority priority);
+    
+    ArrayList<Task> filter(TaskStatus status);
+    
+    ArrayList<Task> filter(TaskCategory category);
+    
+    ArrayList<Task> filter(Priority priority);
+    
+    Collection<Task> dueBefore(LocalDateTime time);
+    
+    Collection<Task> dueBetween(LocalDateTime after, LocalDateTime before);
+    
+    ArrayList<Task> asList();
+    
+    // True if the store can be read by one thread while others add, remove and change tasks.
+    default boolean isThreadSafe() {
+        return false;
+    }
+    
+    // Tasks that may satisfy the query's status, category and priority predicates; the caller re-checks
+    // every predicate. The default walks the index of whichever predicate admits the fewest tasks.
+    default Stream<Task> candidates(TaskQuery query) {
+        long statusHits = Long.MAX_VALUE;
+        long categoryHits = Long.MAX_VALUE;
+        long priorityHits = Long.MAX_VALUE;
+        if (query.getStatuses() != null) {
+            statusHits = query.getStatuses().stream().mapToLong(this::count).sum();
+        }
+        if (query.getCategories() != null) {
+            categoryHits = query.getCategories().stream().mapToLong(this::count).sum();
+        }
+        if (query.getPriorities() != null) {
+            priorityHits = query.getPriorities().stream().mapToLong(this::count).sum();
+        }
+        
+        long fewest = Math.min(statusHits, Math.min(categoryHits, priorityHits));
+        if (fewest >= size()) {
+            return StreamSupport.stream(spliterator(), false);
+        } else if (fewest == statusHits) {
+            return stream(query.getStatuses(), this::filter);
+        } else if (fewest == categoryHits) {
+            return stream(query.getCategories(), this::filter);
+        }
+        return stream(query.getPriorities(), this::filter);
+    }
+    
+    private static <E> Stream<Task> stream(Set<E> values, Function<E, ArrayList<Task>> filter) {
+        return values.stream().flatMap(value -> filter.apply(value).stream());
+    }
+    
+    // One pass over every stored task; stores with a faster layout override it. In parallel mode the
+    // store's spliterator is split across the fork-join pool and each part fills its own builder.
+    default StatisticsSnapshot takeSnapshot(LocalDateTime now, boolean parallel) {
+        if (parallel) {
+            return StreamSupport.stream(spliterator(), true)
+                                .collect(() -> new StatisticsSnapshot.Builder(now),
+                                         StatisticsSnapshot.Builder::accept, StatisticsSnapshot.Builder::merge)
+                                .build();
+        }
+        StatisticsSnapshot.Builder builder = new StatisticsSnapshot.Builder(now);
+        for (Task task : this) {
+            builder.accept(task);
+        }
+        return builder.build();
+    }
+}
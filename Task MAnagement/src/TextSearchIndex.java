@@ -0,0 +1,284 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Inverted index from lower-cased word tokens to the tasks containing them. Each posting remembers
+// which fields held the token; the field bits double as weights, so a title hit outranks a project
+// hit, which outranks an item hit, which outranks a description hit.
+public class TextSearchIndex implements TaskChangeListener {
+    static final int DESCRIPTION = 1;
+    static final int ITEMS = 2;
+    static final int PROJECT = 4;
+    static final int TITLE = 8;
+    
+    // Rough cost of one binary-search probe relative to copying one hit.
+    private static final int PROBE_COST = 16;
+    
+    private final TreeMap<String, IntPostingList> postings;
+    
+    public TextSearchIndex() {
+        this.postings = new TreeMap<>();
+    }
+    
+    public static ArrayList<String> tokenize(String text) {
+        ArrayList<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                token.appendCodePoint(Character.toLowerCase(codePoint));
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+    
+    // Token -> field bits for everything searchable on the task right now.
+    private static HashMap<String, Integer> fieldsByToken(Task task) {
+        HashMap<String, Integer> fields = new HashMap<>();
+        collect(fields, task.getTitle(), TITLE);
+        collect(fields, task.getDescription(), DESCRIPTION);
+        if (task instanceof WorkTask) {
+            collect(fields, ((WorkTask) task).getProject(), PROJECT);
+        } else if (task instanceof ShoppingTask) {
+            for (String item : ((ShoppingTask) task).getItems()) {
+                collect(fields, item, ITEMS);
+            }
+        }
+        return fields;
+    }
+    
+    private static void collect(HashMap<String, Integer> fields, String text, int field) {
+        for (String token : tokenize(text)) {
+            fields.merge(token, field, (a, b) -> a | b);
+        }
+    }
+    
+    // Fields are read before taking the index lock, so the index never waits on a task's lock.
+    public void add(Task task) {
+        HashMap<String, Integer> fields = fieldsByToken(task);
+        synchronized (this) {
+            for (Map.Entry<String, Integer> entry : fields.entrySet()) {
+                update(entry.getKey(), task.getId(), entry.getValue());
+            }
+        }
+    }
+    
+    public void remove(Task task) {
+        HashMap<String, Integer> fields = fieldsByToken(task);
+        synchronized (this) {
+            for (String token : fields.keySet()) {
+                update(token, task.getId(), 0);
+            }
+        }
+    }
+    
+    private void update(String token, int id, int fields) {
+        IntPostingList list = postings.get(token);
+        if (list == null) {
+            if (fields != 0) {
+                postings.computeIfAbsent(token, key -> new IntPostingList()).add(id, fields);
+            }
+            return;
+        }
+        list.set(id, fields);
+        if (list.isEmpty()) {
+            postings.remove(token);
+        }
+    }
+    
+    // Re-derives the postings of the given tokens from the task's current fields.
+    private void refresh(Task task, ArrayList<String> tokens) {
+        HashMap<String, Integer> current = fieldsByToken(task);
+        synchronized (this) {
+            for (String token : tokens) {
+                update(token, task.getId(), current.getOrDefault(token, 0));
+            }
+        }
+    }
+    
+    @Override
+    public void onTaskAdded(Task task) {
+        add(task);
+    }
+    
+    @Override
+    public void onTaskRemoved(Task task) {
+        remove(task);
+    }
+    
+    @Override
+    public void onTitleChanged(Task task, String oldTitle) {
+        ArrayList<String> tokens = tokenize(oldTitle);
+        tokens.addAll(tokenize(task.getTitle()));
+        refresh(task, tokens);
+    }
+    
+    @Override
+    public void onItemAdded(ShoppingTask task, String item) {
+        refresh(task, tokenize(item));
+    }
+    
+    @Override
+    public void onItemRemoved(ShoppingTask task, String item) {
+        refresh(task, tokenize(item));
+    }
+    
+    public int[] search(String query) {
+        return search(query, Integer.MAX_VALUE);
+    }
+    
+    // Every query word must match (AND); each word also matches tokens it is a prefix of. Results are
+    // ordered by score, highest first, then by ID. An exact token match scores double a prefix match.
+    public synchronized int[] search(String query, int limit) {
+        LinkedHashSet<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        
+        // Start from the rarest word; the others are probed per candidate when that is cheaper
+        // than materializing all of their hits.
+        ArrayList<Map<String, IntPostingList>> matchesPerTerm = new ArrayList<>();
+        ArrayList<String> termList = new ArrayList<>();
+        for (String term : terms) {
+            Map<String, IntPostingList> matching = postings.subMap(term, true, term + Character.MAX_VALUE, false);
+            if (matching.isEmpty()) {
+                return new int[0];
+            }
+            matchesPerTerm.add(matching);
+            termList.add(term);
+        }
+        Integer[] order = new Integer[termList.size()];
+        long[] hitCounts = new long[termList.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            for (IntPostingList list : matchesPerTerm.get(i).values()) {
+                hitCounts[i] += list.size();
+            }
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> hitCounts[i]));
+        
+        long[] matches = hitsFor(termList.get(order[0]), matchesPerTerm.get(order[0]));
+        for (int k = 1; k < order.length && matches.length > 0; k++) {
+            int i = order[k];
+            Map<String, IntPostingList> matching = matchesPerTerm.get(i);
+            if ((long) matches.length * matching.size() * PROBE_COST < hitCounts[i]) {
+                matches = probe(matches, termList.get(i), matching);
+            } else {
+                matches = intersect(matches, hitsFor(termList.get(i), matching));
+            }
+        }
+        
+        // Re-key as (inverted score, id) so a plain sort puts the best matches first.
+        long[] ranked = new long[matches.length];
+        for (int i = 0; i < matches.length; i++) {
+            ranked[i] = ((long) (Integer.MAX_VALUE - score(matches[i])) << 32) | id(matches[i]);
+        }
+        Arrays.sort(ranked);
+        
+        int[] ids = new int[Math.min(limit, ranked.length)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) ranked[i];
+        }
+        return ids;
+    }
+    
+    // All tasks matching one query word, as (id << 32 | score) sorted by id, one entry per task.
+    private static long[] hitsFor(String term, Map<String, IntPostingList> matching) {
+        int total = 0;
+        for (IntPostingList list : matching.values()) {
+            total += list.size();
+        }
+        
+        long[] hits = new long[total];
+        int count = 0;
+        for (Map.Entry<String, IntPostingList> entry : matching.entrySet()) {
+            IntPostingList list = entry.getValue();
+            int boost = entry.getKey().length() == term.length() ? 2 : 1;
+            for (int i = 0; i < list.size(); i++) {
+                hits[count++] = ((long) list.getId(i) << 32) | (list.getMask(i) * boost);
+            }
+        }
+        if (matching.size() == 1) {
+            return hits;
+        }
+        
+        // Several tokens share the prefix: sort by id and keep the best score per task.
+        Arrays.sort(hits);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique > 0 && id(hits[unique - 1]) == id(hits[i])) {
+                hits[unique - 1] = hits[i];
+            } else {
+                hits[unique++] = hits[i];
+            }
+        }
+        return Arrays.copyOf(hits, unique);
+    }
+    
+    // Keeps the candidates that also match the word, looking each one up by binary search.
+    private static long[] probe(long[] candidates, String term, Map<String, IntPostingList> matching) {
+        long[] kept = new long[candidates.length];
+        int count = 0;
+        for (long candidate : candidates) {
+            int id = id(candidate);
+            int best = 0;
+            for (Map.Entry<String, IntPostingList> entry : matching.entrySet()) {
+                IntPostingList list = entry.getValue();
+                int index = list.indexOf(id);
+                if (index >= 0) {
+                    int boost = entry.getKey().length() == term.length() ? 2 : 1;
+                    best = Math.max(best, list.getMask(index) * boost);
+                }
+            }
+            if (best > 0) {
+                kept[count++] = ((long) id << 32) | (score(candidate) + best);
+            }
+        }
+        return Arrays.copyOf(kept, count);
+    }
+    
+    private static long[] intersect(long[] left, long[] right) {
+        long[] both = new long[Math.min(left.length, right.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            int leftId = id(left[i]);
+            int rightId = id(right[j]);
+            if (leftId < rightId) {
+                i++;
+            } else if (leftId > rightId) {
+                j++;
+            } else {
+                both[count++] = ((long) leftId << 32) | (score(left[i++]) + score(right[j++]));
+            }
+        }
+        return Arrays.copyOf(both, count);
+    }
+    
+    private static int id(long hit) {
+        return (int) (hit >>> 32);
+    }
+    
+    private static int score(long hit) {
+        return (int) hit;
+    }
+    
+    public synchronized int tokenCount() {
+        return postings.size();
+    }
+}
@@ -0,0 +1,165 @@
+import java.util.Arrays;
+
+// Substring index over task titles. Each title is lower-cased once when it is indexed and broken
+// into three-character grams; a search intersects the posting lists of the term's grams and only
+// checks contains() on the tasks left over. Matches are exactly those of
+// title.toLowerCase().contains(term.toLowerCase()).
+public class TrigramIndex implements TaskChangeListener {
+    private final GramPostings postings;
+    private final TaskIdIndex slotsById;
+    private int[] ids;
+    private String[] foldedTitles;
+    private int size;
+    
+    public TrigramIndex() {
+        this.postings = new GramPostings();
+        this.slotsById = new TaskIdIndex();
+        this.ids = new int[16];
+        this.foldedTitles = new String[16];
+    }
+    
+    private static long gram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+    
+    // Distinct grams of the text, sorted.
+    private static long[] grams(String folded) {
+        int count = Math.max(folded.length() - 2, 0);
+        long[] grams = new long[count];
+        for (int i = 0; i < count; i++) {
+            grams[i] = gram(folded, i);
+        }
+        Arrays.sort(grams);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || grams[unique - 1] != grams[i]) {
+                grams[unique++] = grams[i];
+            }
+        }
+        return unique == count ? grams : Arrays.copyOf(grams, unique);
+    }
+    
+    public void add(Task task) {
+        String folded = task.getTitle().toLowerCase();
+        long[] grams = grams(folded);
+        synchronized (this) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                foldedTitles = Arrays.copyOf(foldedTitles, size * 2);
+            }
+            slotsById.put(task.getId(), size);
+            ids[size] = task.getId();
+            foldedTitles[size] = folded;
+            size++;
+            for (long gram : grams) {
+                postings.getOrCreate(gram).add(task.getId(), 1);
+            }
+        }
+    }
+    
+    public synchronized void remove(Task task) {
+        int slot = slotsById.remove(task.getId());
+        if (slot < 0) {
+            return;
+        }
+        removeGrams(task.getId(), foldedTitles[slot]);
+        
+        int lastSlot = --size;
+        if (slot < lastSlot) {
+            ids[slot] = ids[lastSlot];
+            foldedTitles[slot] = foldedTitles[lastSlot];
+            slotsById.put(ids[slot], slot);
+        }
+        foldedTitles[lastSlot] = null;
+    }
+    
+    private void removeGrams(int id, String folded) {
+        for (long gram : grams(folded)) {
+            IntPostingList list = postings.get(gram);
+            if (list != null && list.remove(id) && list.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+    
+    @Override
+    public void onTaskAdded(Task task) {
+        add(task);
+    }
+    
+    @Override
+    public void onTaskRemoved(Task task) {
+        remove(task);
+    }
+    
+    @Override
+    public void onTitleChanged(Task task, String oldTitle) {
+        String folded = task.getTitle().toLowerCase();
+        long[] grams = grams(folded);
+        synchronized (this) {
+            int slot = slotsById.get(task.getId());
+            if (slot < 0) {
+                return;
+            }
+            removeGrams(task.getId(), foldedTitles[slot]);
+            foldedTitles[slot] = folded;
+            for (long gram : grams) {
+                postings.getOrCreate(gram).add(task.getId(), 1);
+            }
+        }
+    }
+    
+    // IDs of matching tasks in ascending order.
+    public synchronized int[] find(String term) {
+        String folded = term.toLowerCase();
+        if (folded.length() < 3) {
+            return scan(folded);
+        }
+        
+        long[] grams = grams(folded);
+        IntPostingList[] lists = new IntPostingList[grams.length];
+        int listCount = 0;
+        for (long gram : grams) {
+            IntPostingList list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists[listCount++] = list;
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+        
+        // Candidates must appear in every list; walk the shortest and look each one up in the rest.
+        IntPostingList shortest = lists[0];
+        int[] matches = new int[shortest.size()];
+        int count = 0;
+        for (int i = 0; i < shortest.size(); i++) {
+            int id = shortest.getId(i);
+            boolean inAll = true;
+            for (int j = 1; j < lists.length && inAll; j++) {
+                inAll = lists[j].indexOf(id) >= 0;
+            }
+            if (inAll && foldedTitles[slotsById.get(id)].contains(folded)) {
+                matches[count++] = id;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+    
+    // Terms shorter than a gram cannot use the postings; they still avoid re-folding any title.
+    private int[] scan(String folded) {
+        int[] matches = new int[size];
+        int count = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (foldedTitles[slot].contains(folded)) {
+                matches[count++] = ids[slot];
+            }
+        }
+        int[] found = Arrays.copyOf(matches, count);
+        Arrays.sort(found);
+        return found;
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -13,23 +13,32 @@ public class WorkTask extends Task {
         this.estimatedHours = estimatedHours;
     }
     
+    WorkTask(int id, String title, String description, Priority priority, TaskStatus status,
+             LocalDateTime createdDate, LocalDateTime dueDate, LocalDateTime completedDate,
+             String project, String assignedTo, int estimatedHours) {
+        super(id, title, description, priority, TaskCategory.WORK, status, createdDate, dueDate, completedDate);
+        this.project = project;
+        this.assignedTo = assignedTo;
+        this.estimatedHours = estimatedHours;
+    }
+    
     @Override
     public String getTaskType() {
         return "Work Task";
     }
     
     @Override
-    public void displayDetails() {
-        displayBasicInfo();
-        System.out.println("Project: " + project);
-        System.out.println("Assigned to: " + assignedTo);
-        System.out.println("Estimated hours: " + estimatedHours);
+    public void displayDetails(OutputSink out) {
+        displayBasicInfo(out);
+        out.println("Project: " + project);
+        out.println("Assigned to: " + assignedTo);
+        out.println("Estimated hours: " + estimatedHours);
         
-        if (status == TaskStatus.COMPLETED && completedDate != null) {
+        if (getStatus() == TaskStatus.COMPLETED && getCompletedDate() != null) {
             double actualHours = calculateCompletionTime();
             double variance = actualHours - estimatedHours;
-            System.out.println("Actual hours: " + actualHours);
-            System.out.println("Variance: " + (variance > 0 ? "+" : "") + variance + " hours");
+            out.println("Actual hours: " + actualHours);
+            out.println("Variance: " + (variance > 0 ? "+" : "") + variance + " hours");
         }
     }
     
@@ -37,6 +46,10 @@ public class WorkTask extends Task {
         return project;
     }
     
+    public String getAssignedTo() {
+        return assignedTo;
+    }
+    
     public int getEstimatedHours() {
         return estimatedHours;
     }